@@ -0,0 +1,37 @@
+package org.folio.domain;
+
+import java.util.Arrays;
+
+/**
+ * How the totalRecords of a collection response is calculated.
+ */
+public enum TotalRecords {
+
+  EXACT("exact"),
+  ESTIMATED("estimated"),
+  NONE("none");
+
+  private final String value;
+
+  TotalRecords(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * @return the matching constant, null if value is null
+   * @throws IllegalArgumentException if value is not a known value
+   */
+  public static TotalRecords fromValue(String value) {
+    if (value == null) {
+      return null;
+    }
+    return Arrays.stream(values())
+      .filter(totalRecords -> totalRecords.value.equals(value))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException("Unknown totalRecords value: " + value));
+  }
+}
@@ -0,0 +1,162 @@
+package org.folio.event.service;
+
+import static org.folio.event.KafkaConfigSingleton.getPropertyValue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.kafka.KafkaConfig;
+import org.folio.okapi.common.GenericCompositeFuture;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import io.vertx.kafka.client.producer.RecordMetadata;
+
+/**
+ * Long-lived Kafka producers for the events of the outbox. Each context that sends events has one
+ * producer per event type, created on that context so its callbacks run there, and the records
+ * written by an outbox drain are batched instead of opening a producer per record. The producers
+ * of the outbox dispatcher verticle are closed when it is undeployed, those of the contexts that
+ * drain on request live as long as the module.
+ *
+ * <p>The batching is configured with {@code KAFKA_PRODUCER_LINGER_MS} (default 5),
+ * {@code KAFKA_PRODUCER_BATCH_SIZE} (default 16384) and {@code KAFKA_PRODUCER_COMPRESSION_TYPE}
+ * (default none). Sent and failed records and the send time are exposed by the JMX bean
+ * {@value #MBEAN_NAME}.
+ */
+public final class KafkaProducerPool implements KafkaProducerPoolMXBean {
+
+  private static final Logger logger = LogManager.getLogger(KafkaProducerPool.class);
+  private static final String MBEAN_NAME = "org.folio.users:type=KafkaProducerPool";
+  private static final KafkaProducerPool INSTANCE = new KafkaProducerPool(Map.of(
+    ProducerConfig.LINGER_MS_CONFIG, getPropertyValue("KAFKA_PRODUCER_LINGER_MS", "5"),
+    ProducerConfig.BATCH_SIZE_CONFIG, getPropertyValue("KAFKA_PRODUCER_BATCH_SIZE", "16384"),
+    ProducerConfig.COMPRESSION_TYPE_CONFIG, getPropertyValue("KAFKA_PRODUCER_COMPRESSION_TYPE", "none")));
+
+  private final Map<String, String> batchingProps;
+  private final Map<Context, Map<String, KafkaProducer<String, String>>> producers = new ConcurrentHashMap<>();
+  private final AtomicLong openProducers = new AtomicLong();
+  private final AtomicLong sentRecords = new AtomicLong();
+  private final AtomicLong failedRecords = new AtomicLong();
+  private final AtomicLong sendNanos = new AtomicLong();
+
+  KafkaProducerPool(Map<String, String> batchingProps) {
+    this.batchingProps = batchingProps;
+  }
+
+  static {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(MBEAN_NAME));
+    } catch (Exception e) {
+      logger.warn("Cannot register {}", MBEAN_NAME, e);
+    }
+  }
+
+  public static KafkaProducerPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Writes the record with the producer of the context and event type, the producer is created
+   * on first use.
+   *
+   * @param context the context of the caller, the producer belongs to it
+   * @param kafkaConfig the kafka configuration
+   * @param eventType the event type, e.g. USER_CREATED
+   * @param producerRecord the record
+   * @return future completed when Kafka has acknowledged the record, failed with
+   *   IllegalStateException if there is no context
+   */
+  public Future<RecordMetadata> send(Context context, KafkaConfig kafkaConfig, String eventType,
+      KafkaProducerRecord<String, String> producerRecord) {
+
+    if (context == null) {
+      return Future.failedFuture(new IllegalStateException(
+        "Kafka events can only be sent on a Vert.x context, there is none on thread " + Thread.currentThread().getName()));
+    }
+    long start = System.nanoTime();
+    return getProducer(context, kafkaConfig, eventType).send(producerRecord)
+      .onComplete(ar -> {
+        sendNanos.addAndGet(System.nanoTime() - start);
+        if (ar.succeeded()) {
+          sentRecords.incrementAndGet();
+        } else {
+          failedRecords.incrementAndGet();
+        }
+      });
+  }
+
+  /**
+   * Closes the producers of the context, the producers of other contexts are left open.
+   *
+   * @param context the context, e.g. of a verticle that is undeployed
+   * @return future completed when the producers have been closed
+   */
+  public Future<Void> close(Context context) {
+    Map<String, KafkaProducer<String, String>> closing = producers.remove(context);
+    if (closing == null) {
+      return Future.succeededFuture();
+    }
+    return close(closing);
+  }
+
+  /**
+   * Must be called on the context, the producer is created on it.
+   */
+  KafkaProducer<String, String> getProducer(Context context, KafkaConfig kafkaConfig, String eventType) {
+    return producers.computeIfAbsent(context, key -> new ConcurrentHashMap<>())
+      .computeIfAbsent(eventType, type -> createProducer(context.owner(), kafkaConfig, type));
+  }
+
+  private KafkaProducer<String, String> createProducer(Vertx vertx, KafkaConfig kafkaConfig, String eventType) {
+    logger.info("createProducer:: creating the {} producer", eventType);
+    Map<String, String> props = new HashMap<>(kafkaConfig.getProducerProps());
+    props.putAll(batchingProps);
+    openProducers.incrementAndGet();
+    return KafkaProducer.create(vertx, props);
+  }
+
+  private Future<Void> close(Map<String, KafkaProducer<String, String>> producers) {
+    List<Future<Void>> closed = producers.values().stream()
+      .map(producer -> producer.close()
+        .onComplete(ar -> openProducers.decrementAndGet())
+        .onFailure(e -> logger.warn("close:: cannot close a producer", e)))
+      .toList();
+    producers.clear();
+    return GenericCompositeFuture.join(closed).mapEmpty();
+  }
+
+  @Override
+  public long getOpenProducers() {
+    return openProducers.get();
+  }
+
+  @Override
+  public long getSentRecords() {
+    return sentRecords.get();
+  }
+
+  @Override
+  public long getFailedRecords() {
+    return failedRecords.get();
+  }
+
+  @Override
+  public double getAverageSendMillis() {
+    long count = sentRecords.get() + failedRecords.get();
+    return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(sendNanos.get()) / 1000 / count;
+  }
+}
@@ -0,0 +1,15 @@
+package org.folio.event.service;
+
+/**
+ * Throughput of the {@link KafkaProducerPool} for JMX.
+ */
+public interface KafkaProducerPoolMXBean {
+
+  long getOpenProducers();
+
+  long getSentRecords();
+
+  long getFailedRecords();
+
+  double getAverageSendMillis();
+}
@@ -1,9 +1,7 @@
 package org.folio.event.service;
 
 import io.vertx.core.Future;
-import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
-import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -84,27 +82,13 @@ public class UserEventProducer {
     String topicName = createTopicName(kafkaConfig.getEnvId(), tenantId, eventType.getTopicName());
     KafkaProducerRecord<String, String> producerRecord = createProducerRecord(tenantId, topicName, key, userEvent, okapiHeaders);
 
-    Promise<Boolean> promise = Promise.promise();
-
-    KafkaProducer<String, String> producer = createProducer(eventType.getTopicName());
-    producer.write(producerRecord, ar -> {
-      producer.end(ear -> producer.close());
-      if (ar.succeeded()) {
+    return KafkaProducerPool.getInstance()
+      .send(Vertx.currentContext(), kafkaConfig, eventType.getTopicName(), producerRecord)
+      .map(recordMetadata -> {
         logger.info("Event with type '{}' for user with id: '{}' was sent to kafka topic '{}'", eventType, key, topicName);
-        promise.complete(true);
-      } else {
-        Throwable cause = ar.cause();
-        logger.error("Producer write error for event '{}' for user with id: '{}' for kafka topic '{}'",  eventType, key, topicName, cause);
-        promise.fail(cause);
-      }
-    });
-
-    return promise.future();
-  }
-
-  private KafkaProducer<String, String> createProducer(String eventType) {
-    String producerName = eventType + "_Producer";
-    return KafkaProducer.createShared(Vertx.currentContext().owner(), producerName, kafkaConfig.getProducerProps());
+        return true;
+      })
+      .onFailure(cause -> logger.error("Producer write error for event '{}' for user with id: '{}' for kafka topic '{}'",  eventType, key, topicName, cause));
   }
 
   private KafkaProducerRecord<String, String> createProducerRecord(String tenantId, String topicName, String key, UserEvent userEvent, Map<String, String> okapiHeaders) {
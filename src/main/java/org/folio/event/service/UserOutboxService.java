@@ -3,6 +3,7 @@ package org.folio.event.service;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.logging.log4j.LogManager;
@@ -19,11 +20,15 @@ import org.folio.repository.UserEventsLogRepository;
 import org.folio.repository.InternalLockRepository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import static org.folio.domain.UserType.PATRON;
 import static org.folio.domain.UserType.STAFF;
@@ -33,11 +38,44 @@ public class UserOutboxService {
 
   private static final Logger logger = LogManager.getLogger(UserOutboxService.class);
   private static final String OUTBOX_LOCK_NAME = "user_outbox";
+  private static final String OKAPI_HEADER_PREFIX = "x-okapi-";
+  private static final List<String> PARTITION_LOCK_NAMES = IntStream.range(0, UserEventsLogRepository.PARTITIONS)
+    .mapToObj(partition -> OUTBOX_LOCK_NAME + "_" + partition)
+    .toList();
+  /**
+   * Default time budget of a drain.
+   */
+  public static final long DRAIN_BUDGET_MILLIS = 10000;
+  private static final int INITIAL_BATCH_SIZE = 1000;
+  private static final int MIN_BATCH_SIZE = 50;
+  private static final int MAX_BATCH_SIZE = 5000;
+  private static final long TARGET_ACK_MILLIS = 1000;
+
+  /**
+   * Outcome of a drain of the outbox of a tenant.
+   *
+   * @param processed the number of event logs that have been sent and deleted
+   * @param remaining the number of event logs left in the outbox
+   */
+  public record DrainResult(int processed, long remaining) {
+  }
+
+  /**
+   * Outcome of a batch.
+   *
+   * @param processed the number of event logs that have been sent and deleted
+   * @param skippedPartitions whether partitions with event logs have been skipped because other
+   *   transactions hold them
+   */
+  private record BatchResult(int processed, boolean skippedPartitions) {
+  }
 
   private final UserEventProducer producer;
   private final InternalLockRepository lockRepository;
   private final UserEventsLogRepository outboxRepository;
   private final UserTenantService userTenantService;
+  // the adapted batch size of each tenant
+  private final Map<String, Integer> batchSizes = new ConcurrentHashMap<>();
 
   public UserOutboxService() {
     producer = new UserEventProducer();
@@ -50,15 +88,49 @@ public class UserOutboxService {
    * Reads outbox event logs from DB and send them to Kafka
    * and delete from outbox table in the single transaction.
    *
+   * <p>The outbox is split into {@link UserEventsLogRepository#PARTITIONS} partitions by user id.
+   * The transaction locks those of the partitions with event logs that no other transaction has
+   * locked and drains them, so concurrent callers and instances drain disjoint partitions instead
+   * of waiting for each other, and the events of a user are still sent in order.
+   *
+   * <p>The size of the batch adapts to the time Kafka takes to acknowledge a batch: it is halved
+   * when the acknowledgement takes longer than {@value #TARGET_ACK_MILLIS} ms or fails, and
+   * doubled when a full batch is acknowledged in time.
+   *
    * @param okapiHeaders the okapi headers
    * @return future with integer how many records have been processed
    */
   public Future<Integer> processOutboxEventLogs(Vertx vertx, Map<String, String> okapiHeaders) {
-    logger.debug("processOutboxEventLogs:: Trying to process outbox event logs");
     String tenantId = TenantTool.tenantId(okapiHeaders);
+    return processBatch(vertx, okapiHeaders, tenantId, getBatchSize(tenantId)).map(BatchResult::processed);
+  }
+
+  private Future<BatchResult> processBatch(Vertx vertx, Map<String, String> okapiHeaders, String tenantId,
+    int batchSize) {
+
+    logger.debug("processOutboxEventLogs:: Trying to process outbox event logs");
     PostgresClient pgClient = PostgresClient.getInstance(vertx, tenantId);
-    return pgClient.withTrans(conn -> lockRepository.selectWithLocking(conn, OUTBOX_LOCK_NAME, tenantId)
-      .compose(retrievedCount -> outboxRepository.fetchEventLogs(conn, tenantId))
+    return pgClient.withTrans(conn -> outboxRepository.fetchPartitions(conn, tenantId)
+      .compose(pendingPartitions -> {
+        if (pendingPartitions.isEmpty()) {
+          return Future.succeededFuture(new BatchResult(0, false));
+        }
+        List<String> pendingLockNames = pendingPartitions.stream().map(PARTITION_LOCK_NAMES::get).toList();
+        return lockRepository.selectWithSkipLocked(conn, pendingLockNames, tenantId)
+          .compose(lockNames -> processPartitions(conn, okapiHeaders, tenantId, batchSize, lockNames)
+            .map(processed -> new BatchResult(processed, lockNames.size() < pendingLockNames.size())));
+      }));
+  }
+
+  private Future<Integer> processPartitions(Conn conn, Map<String, String> okapiHeaders, String tenantId,
+    int batchSize, List<String> lockNames) {
+
+    if (lockNames.isEmpty()) {
+      logger.info("processOutboxEventLogs:: No outbox partition with event logs is free");
+      return Future.succeededFuture(0);
+    }
+    List<Integer> partitions = lockNames.stream().map(PARTITION_LOCK_NAMES::indexOf).toList();
+    return outboxRepository.fetchEventLogs(conn, tenantId, partitions, batchSize)
       .compose(logs -> {
         if (CollectionUtils.isEmpty(logs)) {
           logger.info("processOutboxEventLogs:: OutBoxEventLogs is empty");
@@ -66,8 +138,10 @@ public class UserOutboxService {
         }
 
         logger.info("processOutboxEventLogs:: Fetched {} event logs from outbox table, going to send them to kafka", logs.size());
+        long start = System.currentTimeMillis();
         List<Future<Boolean>> futures = getKafkaFutures(logs, okapiHeaders);
         return GenericCompositeFuture.join(futures)
+          .onComplete(ar -> adaptBatchSize(tenantId, batchSize, logs.size(), System.currentTimeMillis() - start, ar.succeeded()))
           .map(logs.stream().map(OutboxEventLog::getEventId).toList())
           .compose(eventIds -> {
             if (CollectionUtils.isNotEmpty(eventIds)) {
@@ -78,13 +152,78 @@ public class UserOutboxService {
             logger.info("processOutboxEventLogs:: eventIds is empty");
             return Future.succeededFuture(0);
           });
-      })
-    );
+      });
+  }
+
+  /**
+   * Processes batches of outbox event logs until the outbox is empty, or the partitions left are
+   * being processed by other transactions, or the time budget has run out. The event logs left
+   * are only counted if the last batch has been full or has skipped partitions, otherwise none
+   * are left.
+   *
+   * @param okapiHeaders the okapi headers
+   * @param budgetMillis no batch is started after this time
+   * @return future with how many event logs have been processed and how many remain
+   */
+  public Future<DrainResult> drainOutboxEventLogs(Vertx vertx, Map<String, String> okapiHeaders, long budgetMillis) {
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    long deadline = System.currentTimeMillis() + budgetMillis;
+    return drainBatches(vertx, okapiHeaders, tenantId, deadline, 0)
+      .onSuccess(result -> logger.info("drainOutboxEventLogs:: {} event logs have been processed, {} remain for tenant {}",
+        result.processed(), result.remaining(), tenantId));
+  }
+
+  private Future<DrainResult> drainBatches(Vertx vertx, Map<String, String> okapiHeaders, String tenantId,
+    long deadline, int processed) {
+
+    int batchSize = getBatchSize(tenantId);
+    return processBatch(vertx, okapiHeaders, tenantId, batchSize)
+      .compose(batch -> {
+        int total = processed + batch.processed();
+        boolean shortBatch = batch.processed() < batchSize;
+        if (shortBatch && !batch.skippedPartitions()) {
+          // the batch has emptied the outbox
+          return Future.succeededFuture(new DrainResult(total, 0));
+        }
+        if (shortBatch || System.currentTimeMillis() >= deadline) {
+          return PostgresClient.getInstance(vertx, tenantId)
+            .withConn(conn -> outboxRepository.countEventLogs(conn, tenantId))
+            .map(remaining -> new DrainResult(total, remaining));
+        }
+        return drainBatches(vertx, okapiHeaders, tenantId, deadline, total);
+      });
+  }
+
+  int getBatchSize(String tenantId) {
+    return batchSizes.getOrDefault(tenantId, INITIAL_BATCH_SIZE);
+  }
+
+  void adaptBatchSize(String tenantId, int batchSize, int sent, long ackMillis, boolean acknowledged) {
+    int next = batchSize;
+    if (!acknowledged || ackMillis > TARGET_ACK_MILLIS) {
+      next = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+    } else if (sent >= batchSize) {
+      next = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+    }
+    if (next != batchSize) {
+      logger.info("adaptBatchSize:: batch size of tenant {} is now {}, {} events took {} ms",
+        tenantId, next, sent, ackMillis);
+      batchSizes.put(tenantId, next);
+    }
+  }
+
+  /**
+   * Forgets the adapted batch size of the tenant, its next drain starts with the initial batch size.
+   *
+   * @param tenantId the tenant id
+   */
+  public void resetBatchSize(String tenantId) {
+    batchSizes.remove(tenantId);
   }
 
   public Future<Boolean> saveUserOutboxLogForCreateUser(Conn conn, User user, UserEvent.Action action, Map<String, String> okapiHeaders) {
     logger.debug("saveUserOutboxLogForCreateUser:: Trying to save UserOutBoxLog for create user action");
-    return userTenantService.isConsortiaTenant(conn, okapiHeaders)
+    return userTenantService.isConsortiaTenant(okapiHeaders)
         .compose(isConsortiaTenant -> {
           if (isConsortiaTenant && isStaffOrSystemUser(user)) {
             return saveUserOutboxLog(conn, user, action, okapiHeaders);
@@ -96,7 +235,7 @@ public class UserOutboxService {
 
   public Future<Boolean> saveUserOutboxLogForDeleteUser(Conn conn, User user, UserEvent.Action action, Map<String, String> okapiHeaders) {
     logger.debug("saveUserOutboxLogForDeleteUser:: Trying to save UserOutBoxLog for delete user action");
-    return userTenantService.isConsortiaTenant(conn, okapiHeaders)
+    return userTenantService.isConsortiaTenant(okapiHeaders)
       .compose(isConsortiaTenant -> {
         if (isConsortiaTenant) {
           return saveUserOutboxLog(conn, user, action, okapiHeaders);
@@ -108,15 +247,13 @@ public class UserOutboxService {
 
   public Future<Boolean> saveUserOutboxLogForUpdateUser(Conn conn, User user, User userFromStorage, Map<String, String> okapiHeaders) {
     logger.debug("saveUserOutboxLogForUpdateUser:: Trying to save UserOutBoxLog for update user action");
-    return userTenantService.isConsortiaTenant(conn, okapiHeaders)
+    return userTenantService.isConsortiaTenant(okapiHeaders)
       .compose(isConsortiaTenant -> {
-        boolean isConsortiaFieldsUpdated = isConsortiumUserFieldsUpdated(user, userFromStorage);
-        boolean isPersonalDataChanged = isPersonalDataChanged(user, userFromStorage);
-        boolean isStaffOrSystem = isStaffOrSystemUserUpdated(user, isConsortiaFieldsUpdated, isPersonalDataChanged);
-        boolean isChangedUserTypeBetweenPatronAndStaff = isChangedUserTypeBetweenPatronAndStaff(user, userFromStorage);
-        if (isConsortiaTenant && (isStaffOrSystem || isChangedUserTypeBetweenPatronAndStaff)) {
-          logger.info("saveUserOutboxLogForUpdateUser:: isStaffOrSystem={}, isChangedUserTypeBetweenPatronAndStaff={}", isStaffOrSystem, isChangedUserTypeBetweenPatronAndStaff);
-          return saveUserOutboxLog(conn, user, isPersonalDataChanged, UserEvent.Action.EDIT, okapiHeaders);
+        OutboxEventLog log = isConsortiaTenant ? buildUpdateUserOutboxLog(user, userFromStorage, okapiHeaders) : null;
+        if (log != null) {
+          return outboxRepository.saveEventLog(conn, log, TenantTool.tenantId(okapiHeaders))
+            .onSuccess(reply -> logger.info("Outbox log has been saved for user id: {}", user.getId()))
+            .onFailure(e -> logger.warn("Could not save outbox audit log for user with id {}", user.getId(), e));
         }
         logger.info("saveUserOutboxLogForUpdateUser:: OutBoxLog was NOT saved because user is NOT belong to consortia tenant");
         return Future.succeededFuture();
@@ -124,23 +261,59 @@ public class UserOutboxService {
   }
 
   public Future<Boolean> saveUserOutboxLogForDeleteUsers(Conn conn, List<User> users, Map<String, String> okapiHeaders) {
-    logger.debug("saveUserOutboxLogForDeleteUser:: Trying to save UserOutBoxLog for delete users action");
-    return userTenantService.isConsortiaTenant(conn, okapiHeaders)
+    logger.debug("saveUserOutboxLogForDeleteUsers:: Trying to save UserOutBoxLog for delete users action");
+    return userTenantService.isConsortiaTenant(okapiHeaders)
       .compose(isConsortiaTenant -> {
         if (isConsortiaTenant) {
-          List<Future<Boolean>> resultFuture = new ArrayList<>();
-          Future<Boolean> lineFuture = Future.succeededFuture();
-          for (User user : users) {
-            lineFuture = lineFuture.compose(v -> saveUserOutboxLog(conn, user, UserEvent.Action.DELETE, okapiHeaders));
-            resultFuture.add(lineFuture);
-          }
-          return Future.succeededFuture(resultFuture.size() == users.size());
+          List<OutboxEventLog> logs = users.stream()
+            .map(user -> buildOutboxLog(UserEvent.Action.DELETE.value(), OutboxEventLog.EntityType.USER, Json.encode(user), false, okapiHeaders))
+            .toList();
+          return saveOutboxLogs(conn, logs, okapiHeaders)
+            .map(savedCount -> savedCount == users.size());
         }
-        logger.info("saveUserOutboxLogForUpdateUser:: OutBoxLog was NOT saved because user is NOT belong to consortia tenant");
+        logger.info("saveUserOutboxLogForDeleteUsers:: OutBoxLog was NOT saved because user is NOT belong to consortia tenant");
         return Future.succeededFuture(false);
       });
   }
 
+  /**
+   * Saves the outbox logs of users that have been created or updated together, applying the same rules as
+   * {@link #saveUserOutboxLogForCreateUser} and {@link #saveUserOutboxLogForUpdateUser} with a single insert.
+   *
+   * @param conn connection in transaction
+   * @param users the saved users
+   * @param usersFromStorage the users before the update by id, users that have been created are absent
+   * @param okapiHeaders okapi headers
+   * @return future with the number of saved outbox logs
+   */
+  public Future<Integer> saveUserOutboxLogsForCreateOrUpdateUsers(Conn conn, Collection<User> users,
+    Map<String, User> usersFromStorage, Map<String, String> okapiHeaders) {
+
+    logger.debug("saveUserOutboxLogsForCreateOrUpdateUsers:: Trying to save UserOutBoxLogs for {} users", users.size());
+    return userTenantService.isConsortiaTenant(okapiHeaders)
+      .compose(isConsortiaTenant -> {
+        if (!isConsortiaTenant) {
+          logger.info("saveUserOutboxLogsForCreateOrUpdateUsers:: OutBoxLogs were NOT saved because users are NOT belong to consortia tenant");
+          return Future.succeededFuture(0);
+        }
+        List<OutboxEventLog> logs = new ArrayList<>();
+        for (User user : users) {
+          User userFromStorage = usersFromStorage.get(user.getId());
+          if (userFromStorage == null) {
+            if (isStaffOrSystemUser(user)) {
+              logs.add(buildOutboxLog(UserEvent.Action.CREATE.value(), OutboxEventLog.EntityType.USER, Json.encode(user), false, okapiHeaders));
+            }
+          } else {
+            OutboxEventLog log = buildUpdateUserOutboxLog(user, userFromStorage, okapiHeaders);
+            if (log != null) {
+              logs.add(log);
+            }
+          }
+        }
+        return saveOutboxLogs(conn, logs, okapiHeaders);
+      });
+  }
+
   /**
    * Saves user outbox log.
    *
@@ -178,7 +351,7 @@ public class UserOutboxService {
         User user = Json.decodeValue(log.getPayload(), User.class);
         boolean isPersonalDataChanged = log.getIsPersonalDataChanged() != null && log.getIsPersonalDataChanged();
         UserEvent.Action userAction = UserEvent.Action.fromValue(log.getAction());
-        futures.add(producer.sendUserEvent(user, isPersonalDataChanged, userAction, okapiHeaders));
+        futures.add(producer.sendUserEvent(user, isPersonalDataChanged, userAction, eventHeaders(log, okapiHeaders)));
       }
     }
     return futures;
@@ -191,16 +364,73 @@ public class UserOutboxService {
                                         boolean isPersonalDataChanged,
                                         Map<String, String> okapiHeaders) {
     String tenantId = TenantTool.tenantId(okapiHeaders);
+    OutboxEventLog log = buildOutboxLog(action, entityType, entity, isPersonalDataChanged, okapiHeaders);
+    return outboxRepository.saveEventLog(conn, log, tenantId);
+  }
+
+  private Future<Integer> saveOutboxLogs(Conn conn, List<OutboxEventLog> logs, Map<String, String> okapiHeaders) {
+    if (logs.isEmpty()) {
+      return Future.succeededFuture(0);
+    }
+    return outboxRepository.saveEventLogs(conn, logs, TenantTool.tenantId(okapiHeaders))
+      .onSuccess(savedCount -> logger.info("saveOutboxLogs:: {} outbox logs have been saved", savedCount))
+      .onFailure(e -> logger.warn("saveOutboxLogs:: Could not save {} outbox logs", logs.size(), e));
+  }
 
-    OutboxEventLog log = new OutboxEventLog()
+  private OutboxEventLog buildOutboxLog(String action, OutboxEventLog.EntityType entityType, String entity,
+                                        boolean isPersonalDataChanged, Map<String, String> okapiHeaders) {
+    return new OutboxEventLog()
       .withEventId(UUID.randomUUID().toString())
       .withAction(action)
       .withActionDate(new Date())
       .withEntityType(entityType)
       .withPayload(entity)
-      .withIsPersonalDataChanged(isPersonalDataChanged);
+      .withIsPersonalDataChanged(isPersonalDataChanged)
+      .withOkapiHeaders(propagatedHeaders(okapiHeaders));
+  }
 
-    return outboxRepository.saveEventLog(conn, log, tenantId);
+  /**
+   * The x-okapi- headers of the writing request as JSON object, the consumers of the events call
+   * back into FOLIO with its token and audit records its user and request ids. The event log is
+   * deleted once the event has been sent.
+   */
+  static String propagatedHeaders(Map<String, String> okapiHeaders) {
+    JsonObject headers = new JsonObject();
+    okapiHeaders.forEach((name, value) -> {
+      if (name.toLowerCase().startsWith(OKAPI_HEADER_PREFIX)) {
+        headers.put(name.toLowerCase(), value);
+      }
+    });
+    return headers.encode();
+  }
+
+  /**
+   * The headers of the event of an event log, the headers of the request that has written the
+   * event log take precedence over those of the drain. Event logs written before the headers were
+   * kept are sent with the headers of the drain.
+   */
+  static Map<String, String> eventHeaders(OutboxEventLog log, Map<String, String> okapiHeaders) {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(okapiHeaders);
+    if (log.getOkapiHeaders() != null) {
+      new JsonObject(log.getOkapiHeaders()).forEach(header -> headers.put(header.getKey(), String.valueOf(header.getValue())));
+    }
+    return headers;
+  }
+
+  /**
+   * Builds the outbox log of an updated user of a consortia tenant, null if the update doesn't need one.
+   */
+  private OutboxEventLog buildUpdateUserOutboxLog(User user, User userFromStorage, Map<String, String> okapiHeaders) {
+    boolean isConsortiaFieldsUpdated = isConsortiumUserFieldsUpdated(user, userFromStorage);
+    boolean isPersonalDataChanged = isPersonalDataChanged(user, userFromStorage);
+    boolean isStaffOrSystem = isStaffOrSystemUserUpdated(user, isConsortiaFieldsUpdated, isPersonalDataChanged);
+    boolean isChangedUserTypeBetweenPatronAndStaff = isChangedUserTypeBetweenPatronAndStaff(user, userFromStorage);
+    if (isStaffOrSystem || isChangedUserTypeBetweenPatronAndStaff) {
+      logger.info("buildUpdateUserOutboxLog:: isStaffOrSystem={}, isChangedUserTypeBetweenPatronAndStaff={}", isStaffOrSystem, isChangedUserTypeBetweenPatronAndStaff);
+      return buildOutboxLog(UserEvent.Action.EDIT.value(), OutboxEventLog.EntityType.USER, Json.encode(user), isPersonalDataChanged, okapiHeaders);
+    }
+    return null;
   }
 
   private boolean isConsortiumUserFieldsUpdated(User updatedUser, User userFromStorage) {
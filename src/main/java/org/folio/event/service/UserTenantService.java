@@ -21,11 +21,13 @@ import org.folio.rest.persist.PgUtil;
 import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.tools.utils.TenantTool;
 import org.folio.rest.utils.OkapiConnectionParams;
+import org.folio.service.cache.TenantCache;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 
@@ -37,12 +39,24 @@ public class UserTenantService {
   public static final String USERNAME_IS_NOT_POPULATED = "In consortium mode, the staff user must have a username";
   public static final String MEMBER_USER_TENANT_SHOULD_CONTAIN_SINGLE_RECORD = "User-tenant table in member ECS tenant should contain 1 record";
 
+  /**
+   * First user-tenant record of each tenant, it tells whether the tenant is in a consortium and which
+   * tenant is the central one. Entries are dropped on user-tenant writes of this instance and expire
+   * to pick up writes made by other instances.
+   */
+  private static final TenantCache<UserTenantCollection> FIRST_USER_TENANT_CACHE =
+    new TenantCache<>(TimeUnit.MINUTES.toMillis(1));
+
   private final UserTenantRepository tenantRepository;
   private final BiFunction<Vertx, String, PostgresClient> pgClientFactory;
 
   public UserTenantService() {
-    pgClientFactory = PostgresClient::getInstance;
-    tenantRepository = new UserTenantRepository();
+    this(PostgresClient::getInstance, new UserTenantRepository());
+  }
+
+  UserTenantService(BiFunction<Vertx, String, PostgresClient> pgClientFactory, UserTenantRepository tenantRepository) {
+    this.pgClientFactory = pgClientFactory;
+    this.tenantRepository = tenantRepository;
   }
 
   public Future<UserTenantCollection> fetchUserTenants(String tenantId, Criterion criterion, Vertx vertx) {
@@ -52,13 +66,12 @@ public class UserTenantService {
 
   /**
    * Get the consortia central tenant id, if we are not in consortium mode - we always return null result and it is expected
-   * @param conn connection in transaction
    * @param okapiHeaders okapi headers
    * @return For consortia return - consortiaCentralTenantId, for common deployment - null
    */
-  public Future<String> getConsortiaCentralTenantId(Conn conn, Map<String, String> okapiHeaders) {
+  public Future<String> getConsortiaCentralTenantId(Map<String, String> okapiHeaders) {
     String okapiTenantId = TenantTool.tenantId(okapiHeaders);
-    return fetchFirstUserTenant(conn, okapiTenantId)
+    return fetchCachedFirstUserTenant(okapiTenantId)
       .map(res -> {
         if (res.getTotalRecords() > 0) {
           return res.getUserTenants().stream().map(UserTenant::getCentralTenantId).findFirst().orElse(null);
@@ -69,16 +82,24 @@ public class UserTenantService {
 
   /**
    * Check is it consortia tenant or common deployment.
-   * @param conn connection in transaction
    * @param okapiHeaders okapi headers
    * @return succeededFuture(true) if it's consortia tenant
    */
-  public Future<Boolean> isConsortiaTenant(Conn conn, Map<String, String> okapiHeaders) {
+  public Future<Boolean> isConsortiaTenant(Map<String, String> okapiHeaders) {
     String okapiTenantId = TenantTool.tenantId(okapiHeaders);
-    return fetchFirstUserTenant(conn, okapiTenantId)
+    return fetchCachedFirstUserTenant(okapiTenantId)
       .map(res -> res.getTotalRecords() > 0);
   }
 
+  /**
+   * Drops the cached consortium membership of the tenant, must be called after its user-tenant records change.
+   * @param tenantId the tenant id
+   */
+  public static void invalidateConsortiaTenantCache(String tenantId) {
+    logger.debug("invalidateConsortiaTenantCache:: tenantId {}", tenantId);
+    FIRST_USER_TENANT_CACHE.invalidate(tenantId);
+  }
+
   /**
    * User-tenant table in each member ECS tenant has only single record, in this case http requests to this tenant allowed
    * (central ECS tenant contains multiple user tenant associations necessary for login, saml-login, forgot password/username functionality).
@@ -105,7 +126,23 @@ public class UserTenantService {
             }
             return Future.succeededFuture(Boolean.TRUE);
           });
-      }));
+      }))
+      .onComplete(ar -> invalidateConsortiaTenantCache(tenantId));
+  }
+
+  /**
+   * The load is shared by all concurrent callers, so it runs on a pooled connection instead of the
+   * transaction of the first caller: a rollback of that transaction would fail the load of the others.
+   */
+  private Future<UserTenantCollection> fetchCachedFirstUserTenant(String tenantId) {
+    return FIRST_USER_TENANT_CACHE.get(tenantId, () -> {
+      Context context = Vertx.currentContext();
+      if (context == null) {
+        return Future.failedFuture(new IllegalStateException("The user-tenants must be loaded on a Vert.x context"));
+      }
+      return pgClientFactory.apply(context.owner(), tenantId)
+        .withConn(conn -> fetchFirstUserTenant(conn, tenantId));
+    });
   }
 
   private Future<UserTenantCollection> fetchFirstUserTenant(Conn conn, String tenantId) {
@@ -115,27 +152,30 @@ public class UserTenantService {
 
   public Future<Boolean> saveUserTenant(UserTenant userTenant, String tenantId, Vertx vertx) {
     PostgresClient pgClient = pgClientFactory.apply(vertx, tenantId);
-    return pgClient.withConn(conn -> tenantRepository.saveUserTenant(conn, userTenant, tenantId));
+    return pgClient.withConn(conn -> tenantRepository.saveUserTenant(conn, userTenant, tenantId))
+      .onComplete(ar -> invalidateConsortiaTenantCache(tenantId));
   }
 
   public Future<Boolean> updateUserTenant(UserTenant userTenant, String tenantId, Vertx vertx) {
     PostgresClient pgClient = pgClientFactory.apply(vertx, tenantId);
-    return pgClient.withConn(conn -> tenantRepository.updateUserTenant(conn, userTenant, tenantId));
+    return pgClient.withConn(conn -> tenantRepository.updateUserTenant(conn, userTenant, tenantId))
+      .onComplete(ar -> invalidateConsortiaTenantCache(tenantId));
   }
 
   public Future<Boolean> deleteUserTenant(UserTenant userTenant, String tenantId, Vertx vertx) {
     PostgresClient pgClient = pgClientFactory.apply(vertx, tenantId);
-    return pgClient.withConn(conn -> tenantRepository.deleteUserTenant(conn, userTenant, tenantId));
+    return pgClient.withConn(conn -> tenantRepository.deleteUserTenant(conn, userTenant, tenantId))
+      .onComplete(ar -> invalidateConsortiaTenantCache(tenantId));
   }
 
-  public Future<Void> validateUserAcrossTenants(User entity, User userFromStorage, Map<String, String> okapiHeaders, Conn conn, Context vertxContext) {
+  public Future<Void> validateUserAcrossTenants(User entity, User userFromStorage, Map<String, String> okapiHeaders, Context vertxContext) {
     Predicate<User> predicate = user -> ObjectUtils.notEqual(user.getUsername(), userFromStorage.getUsername());
-    return validateUserAcrossTenants(entity, okapiHeaders, conn, vertxContext, predicate);
+    return validateUserAcrossTenants(entity, okapiHeaders, vertxContext, predicate);
   }
 
-  public Future<Void> validateUserAcrossTenants(User entity, Map<String, String> okapiHeaders, Conn conn, Context vertxContext) {
+  public Future<Void> validateUserAcrossTenants(User entity, Map<String, String> okapiHeaders, Context vertxContext) {
     Predicate<User> predicate = user -> ObjectUtils.notEqual(UserType.SYSTEM.getTypeName(), entity.getType());
-    return validateUserAcrossTenants(entity, okapiHeaders, conn, vertxContext, predicate);
+    return validateUserAcrossTenants(entity, okapiHeaders, vertxContext, predicate);
   }
 
   /**
@@ -144,13 +184,12 @@ public class UserTenantService {
    * For common deployments always will be return succeeded future.
    * @param entity the user
    * @param okapiHeaders okapi headers
-   * @param conn connection in transaction
    * @param vertxContext The Vertx Context Object
    * @param predicate condition for name validation
    * @return succeededFuture if crosstenant username is unique and userType is populated
    */
-  private Future<Void> validateUserAcrossTenants(User entity, Map<String, String> okapiHeaders, Conn conn, Context vertxContext, Predicate<User> predicate) {
-    return getConsortiaCentralTenantId(conn, okapiHeaders)
+  private Future<Void> validateUserAcrossTenants(User entity, Map<String, String> okapiHeaders, Context vertxContext, Predicate<User> predicate) {
+    return getConsortiaCentralTenantId(okapiHeaders)
       .compose(consortiaCentralTenantId -> {
         if (Objects.nonNull(consortiaCentralTenantId)) {
           logger.info("Found central tenant id = {}", consortiaCentralTenantId);
@@ -5,12 +5,17 @@ import io.vertx.sqlclient.SqlResult;
 import io.vertx.sqlclient.Tuple;
 import org.folio.rest.persist.Conn;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
 
 public class InternalLockRepository {
 
   private static final String TABLE_NAME = "internal_lock";
   private static final String SELECT_WITH_LOCKING = "SELECT * FROM %s.%s WHERE lock_name = $1 FOR UPDATE";
+  private static final String SELECT_WITH_SKIP_LOCKED =
+    "SELECT lock_name FROM %s.%s WHERE lock_name = ANY ($1) FOR UPDATE SKIP LOCKED";
 
   /**
    * Performs SELECT FOR UPDATE statement in order to implement locking.
@@ -26,4 +31,24 @@ public class InternalLockRepository {
     Tuple params = Tuple.of(lockName);
     return conn.execute(query, params).map(SqlResult::rowCount);
   }
+
+  /**
+   * Locks those of the locks that are not held by another transaction, without waiting for them.
+   * The locks are released after transaction's commit.
+   *
+   * @param conn connection with active transaction
+   * @param lockNames the lock names
+   * @param tenantId the tenant id
+   * @return future with the names of the acquired locks
+   */
+  public Future<List<String>> selectWithSkipLocked(Conn conn, List<String> lockNames, String tenantId) {
+    String query = String.format(SELECT_WITH_SKIP_LOCKED, convertToPsqlStandard(tenantId), TABLE_NAME);
+    Tuple params = Tuple.of(lockNames.toArray(String[]::new));
+    return conn.execute(query, params)
+      .map(rows -> {
+        List<String> acquired = new ArrayList<>();
+        rows.forEach(row -> acquired.add(row.getString("lock_name")));
+        return acquired;
+      });
+  }
 }
@@ -1,6 +1,7 @@
 package org.folio.repository;
 
 import io.vertx.core.Future;
+import io.vertx.core.json.Json;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlResult;
@@ -8,6 +9,7 @@ import io.vertx.sqlclient.Tuple;
 import org.folio.rest.jaxrs.model.OutboxEventLog;
 import org.folio.rest.persist.Conn;
 
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,26 +21,82 @@ import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
 
 public class UserEventsLogRepository {
 
+  /**
+   * Channel of the notifications sent when outbox logs are saved, the payload is the tenant id.
+   */
+  public static final String OUTBOX_CHANNEL = "mod_users_outbox";
+
   private static final String OUTBOX_TABLE_NAME = "outbox_event_log";
   private static final String EVENT_ID_FIELD = "event_id";
   private static final String ENTITY_TYPE_FIELD = "entity_type";
   private static final String PERSONAL_DATA_CHANGED_FIELD = "is_personal_data_changed";
   private static final String ACTION_FIELD = "action";
   private static final String PAYLOAD_FIELD = "payload";
-  private static final String INSERT_SQL = "INSERT INTO %s.%s (event_id, entity_type, action, action_date, payload, is_personal_data_changed) VALUES ($1, $2, $3, $4, $5, $6)";
-  private static final String SELECT_EVENT_LOGS = "SELECT * FROM %s.%s ORDER BY action_date LIMIT 1000";
+  private static final String OKAPI_HEADERS_FIELD = "okapi_headers";
+  private static final String INSERT_SQL = "INSERT INTO %s.%s (event_id, entity_type, action, action_date, payload, is_personal_data_changed, okapi_headers)"
+    + " VALUES ($1, $2, $3, $4, $5::text::jsonb, $6, $7::text::jsonb)";
+  private static final String INSERT_BATCH_SQL = "INSERT INTO %s.%s (event_id, entity_type, action, action_date, payload, is_personal_data_changed, okapi_headers)"
+    + " SELECT * FROM unnest($1::uuid[], $2::text[], $3::text[], $4::timestamptz[], $5::text[]::jsonb[], $6::boolean[], $7::text[]::jsonb[])";
+  private static final int INSERT_BATCH_SIZE = 1000;
+  /**
+   * Number of partitions of the outbox, the events of a user are in the partition of its id and
+   * an event without an id is in partition 0. create_outbox_partitions.sql creates the locks of
+   * partitions 0 to 15 and indexes the partition expression with {@code & 15}, it must be changed
+   * with this number.
+   */
+  public static final int PARTITIONS = 16;
+  private static final String PARTITION_EXPRESSION = "(coalesce(hashtext(payload->>'id'), 0) & " + (PARTITIONS - 1) + ")";
+  // one index probe per partition instead of reading the whole outbox
+  private static final String SELECT_PARTITIONS = "SELECT partition FROM generate_series(0, " + (PARTITIONS - 1) + ") AS partition"
+    + " WHERE EXISTS (SELECT 1 FROM %s.%s WHERE " + PARTITION_EXPRESSION + " = partition)";
+  private static final String SELECT_EVENT_LOGS = "SELECT * FROM %s.%s WHERE " + PARTITION_EXPRESSION + " = ANY ($1)"
+    + " ORDER BY action_date LIMIT $2 FOR UPDATE SKIP LOCKED";
+  private static final String COUNT_EVENT_LOGS = "SELECT count(*) FROM %s.%s";
+  private static final String NOTIFY_SQL = "SELECT pg_notify('" + OUTBOX_CHANNEL + "', $1)";
   public static final String DELETE_SQL = "DELETE from %s.%s where event_id = ANY ($1)";
 
   /**
-   * Fetches event logs from outbox table.
+   * Fetches the partitions that have event logs.
    *
    * @param conn the sql connection from transaction
    * @param tenantId the tenant id
+   * @return future with the partitions, from 0 to {@link #PARTITIONS} - 1
+   */
+  public Future<List<Integer>> fetchPartitions(Conn conn, String tenantId) {
+    String query = String.format(SELECT_PARTITIONS, convertToPsqlStandard(tenantId), OUTBOX_TABLE_NAME);
+    return conn.execute(query)
+      .map(rows -> {
+        List<Integer> partitions = new ArrayList<>();
+        rows.forEach(row -> partitions.add(row.getInteger("partition")));
+        return partitions;
+      });
+  }
+
+  /**
+   * Fetches the oldest event logs of the partitions from outbox table and locks them, skipping
+   * the event logs locked by another transaction.
+   *
+   * @param conn the sql connection from transaction
+   * @param tenantId the tenant id
+   * @param partitions the partitions, from 0 to {@link #PARTITIONS} - 1
+   * @param limit the maximum number of event logs
    * @return future with list of fetched event logs
    */
-  public Future<List<OutboxEventLog>> fetchEventLogs(Conn conn, String tenantId) {
+  public Future<List<OutboxEventLog>> fetchEventLogs(Conn conn, String tenantId, List<Integer> partitions, int limit) {
     String query = String.format(SELECT_EVENT_LOGS, convertToPsqlStandard(tenantId), OUTBOX_TABLE_NAME);
-    return conn.execute(query).map(this::mapResultSetToEventLogs);
+    return conn.execute(query, Tuple.of(partitions.toArray(Integer[]::new), limit)).map(this::mapResultSetToEventLogs);
+  }
+
+  /**
+   * Counts the event logs in outbox table.
+   *
+   * @param conn the sql connection
+   * @param tenantId the tenant id
+   * @return future with the number of event logs
+   */
+  public Future<Long> countEventLogs(Conn conn, String tenantId) {
+    String query = String.format(COUNT_EVENT_LOGS, convertToPsqlStandard(tenantId), OUTBOX_TABLE_NAME);
+    return conn.execute(query).map(rows -> rows.iterator().next().getLong(0));
   }
 
   /**
@@ -53,8 +111,30 @@ public class UserEventsLogRepository {
   public Future<Boolean> saveEventLog(Conn conn, OutboxEventLog eventLog, String tenantId) {
     String query = String.format(INSERT_SQL, convertToPsqlStandard(tenantId), OUTBOX_TABLE_NAME);
     Tuple queryParams = Tuple.of(eventLog.getEventId(), eventLog.getEntityType().value(), eventLog.getAction(),
-      eventLog.getActionDate().toInstant().atOffset(ZoneOffset.UTC), eventLog.getPayload(), eventLog.getIsPersonalDataChanged());
-    return conn.execute(query, queryParams).map(resultSet -> resultSet.size() == 1);
+      eventLog.getActionDate().toInstant().atOffset(ZoneOffset.UTC), eventLog.getPayload(), eventLog.getIsPersonalDataChanged())
+      .addString(eventLog.getOkapiHeaders());
+    return conn.execute(query, queryParams)
+      .compose(resultSet -> notifyDispatcher(conn, tenantId).map(resultSet.size() == 1));
+  }
+
+  /**
+   * Saves event logs to outbox table with one multi-row insert per {@link #INSERT_BATCH_SIZE} logs,
+   * the chunks are inserted one after another on the connection.
+   *
+   * @param conn     the sql connection that shares the same transaction
+   * @param eventLogs the event logs to save
+   * @param tenantId the tenant id
+   * @return future with the number of saved event logs
+   */
+  public Future<Integer> saveEventLogs(Conn conn, List<OutboxEventLog> eventLogs, String tenantId) {
+    String query = String.format(INSERT_BATCH_SQL, convertToPsqlStandard(tenantId), OUTBOX_TABLE_NAME);
+    Future<Integer> future = Future.succeededFuture(0);
+    for (int from = 0; from < eventLogs.size(); from += INSERT_BATCH_SIZE) {
+      List<OutboxEventLog> chunk = eventLogs.subList(from, Math.min(from + INSERT_BATCH_SIZE, eventLogs.size()));
+      future = future.compose(count -> conn.execute(query, toBatchParams(chunk))
+        .map(resultSet -> count + resultSet.rowCount()));
+    }
+    return future.compose(count -> notifyDispatcher(conn, tenantId).map(count));
   }
 
   /**
@@ -72,6 +152,37 @@ public class UserEventsLogRepository {
     return conn.execute(deleteQuery, queryParams).map(SqlResult::rowCount);
   }
 
+  /**
+   * The notification is delivered when the transaction commits, Postgres sends the same
+   * notification of a transaction only once.
+   */
+  private static Future<Void> notifyDispatcher(Conn conn, String tenantId) {
+    return conn.execute(NOTIFY_SQL, Tuple.of(tenantId)).mapEmpty();
+  }
+
+  private static Tuple toBatchParams(List<OutboxEventLog> eventLogs) {
+    int size = eventLogs.size();
+    UUID[] eventIds = new UUID[size];
+    String[] entityTypes = new String[size];
+    String[] actions = new String[size];
+    OffsetDateTime[] actionDates = new OffsetDateTime[size];
+    String[] payloads = new String[size];
+    Boolean[] personalDataChanged = new Boolean[size];
+    String[] okapiHeaders = new String[size];
+    for (int i = 0; i < size; i++) {
+      OutboxEventLog eventLog = eventLogs.get(i);
+      eventIds[i] = UUID.fromString(eventLog.getEventId());
+      entityTypes[i] = eventLog.getEntityType().value();
+      actions[i] = eventLog.getAction();
+      actionDates[i] = eventLog.getActionDate().toInstant().atOffset(ZoneOffset.UTC);
+      payloads[i] = eventLog.getPayload();
+      personalDataChanged[i] = eventLog.getIsPersonalDataChanged();
+      okapiHeaders[i] = eventLog.getOkapiHeaders();
+    }
+    return Tuple.of(eventIds, entityTypes, actions, actionDates, payloads, personalDataChanged)
+      .addArrayOfString(okapiHeaders);
+  }
+
   private List<OutboxEventLog> mapResultSetToEventLogs(RowSet<Row> resultSet) {
     List<OutboxEventLog> result = new ArrayList<>();
     for (Row row : resultSet) {
@@ -79,10 +190,21 @@ public class UserEventsLogRepository {
         .withEventId(row.getValue(EVENT_ID_FIELD).toString())
         .withEntityType(OutboxEventLog.EntityType.fromValue(row.getString(ENTITY_TYPE_FIELD)))
         .withAction(row.getString(ACTION_FIELD))
-        .withPayload(row.getString(PAYLOAD_FIELD))
-        .withIsPersonalDataChanged(row.getBoolean(PERSONAL_DATA_CHANGED_FIELD));
+        .withPayload(toJsonString(row.getValue(PAYLOAD_FIELD)))
+        .withIsPersonalDataChanged(row.getBoolean(PERSONAL_DATA_CHANGED_FIELD))
+        .withOkapiHeaders(toJsonString(row.getValue(OKAPI_HEADERS_FIELD)));
       result.add(log);
     }
     return result;
   }
+
+  /**
+   * Event logs saved before the payload was cast to jsonb hold it as a JSON string.
+   */
+  private static String toJsonString(Object json) {
+    if (json == null || json instanceof String) {
+      return (String) json;
+    }
+    return Json.encode(json);
+  }
 }
@@ -13,7 +13,11 @@ import org.folio.rest.jaxrs.model.AddresstypeCollection;
 import org.folio.rest.jaxrs.resource.Addresstypes;
 import org.folio.rest.persist.PgUtil;
 import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.tools.utils.TenantTool;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
 import org.folio.service.impl.UserRepository;
+import org.folio.support.ConditionalGet;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
@@ -43,7 +47,8 @@ public class AddressTypeAPI implements Addresstypes {
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
     PgUtil.get(ADDRESS_TYPE_TABLE, AddressType.class, AddresstypeCollection.class,
-      query, offset, limit, okapiHeaders, vertxContext, GetAddresstypesResponse.class, asyncResultHandler);
+      query, offset, limit, okapiHeaders, vertxContext, GetAddresstypesResponse.class,
+      ConditionalGet.withEtag(okapiHeaders, asyncResultHandler));
   }
 
   @Override
@@ -52,7 +57,7 @@ public class AddressTypeAPI implements Addresstypes {
       Context vertxContext) {
 
     PgUtil.post(ADDRESS_TYPE_TABLE, entity, okapiHeaders, vertxContext,
-      PostAddresstypesResponse.class, asyncResultHandler);
+      PostAddresstypesResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
   }
 
   @Override
@@ -93,8 +98,8 @@ public class AddressTypeAPI implements Addresstypes {
 
         logger.info("Removing non-associated address type '{}'", addresstypeId);
 
-        PgUtil.deleteById(ADDRESS_TYPE_TABLE, addresstypeId, okapiHeaders,
-          vertxContext, DeleteAddresstypesByAddresstypeIdResponse.class, asyncResultHandler);
+        PgUtil.deleteById(ADDRESS_TYPE_TABLE, addresstypeId, okapiHeaders, vertxContext,
+          DeleteAddresstypesByAddresstypeIdResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
       });
   }
 
@@ -103,7 +108,20 @@ public class AddressTypeAPI implements Addresstypes {
       AddressType entity, Map<String, String> okapiHeaders,
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
-    PgUtil.put(ADDRESS_TYPE_TABLE, entity, addresstypeId, okapiHeaders,
-      vertxContext, PutAddresstypesByAddresstypeIdResponse.class, asyncResultHandler);
+    PgUtil.put(ADDRESS_TYPE_TABLE, entity, addresstypeId, okapiHeaders, vertxContext,
+      PutAddresstypesByAddresstypeIdResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
+  }
+
+  /**
+   * Drops the cached address type ids of the tenant once the write has completed.
+   */
+  private static Handler<AsyncResult<Response>> invalidatingCache(Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler) {
+
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    return result -> {
+      CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.ADDRESS_TYPE, null);
+      asyncResultHandler.handle(result);
+    };
   }
 }
@@ -3,6 +3,7 @@ package org.folio.rest.impl;
 import static org.folio.rest.persist.PgUtil.deleteById;
 import static org.folio.rest.persist.PgUtil.get;
 import static org.folio.rest.persist.PgUtil.getById;
+import static org.folio.rest.persist.PgUtil.postgresClient;
 import static org.folio.rest.persist.PgUtil.post;
 import static org.folio.rest.persist.PgUtil.put;
 
@@ -18,12 +19,19 @@ import io.vertx.core.Handler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.http.HttpStatus;
+import org.folio.domain.TotalRecords;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Department;
 import org.folio.rest.jaxrs.model.DepartmentCollection;
 import org.folio.rest.jaxrs.model.Errors;
 import org.folio.rest.jaxrs.resource.Departments;
+import org.folio.rest.tools.utils.TenantTool;
 import org.folio.rest.tools.utils.ValidationHelper;
+import org.folio.service.CollectionService;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
+import org.folio.support.ConditionalGet;
+import org.folio.support.FailureHandler;
 
 public class DepartmentsAPI implements Departments {
   private static final Logger logger = LogManager.getLogger(DepartmentsAPI.class);
@@ -37,13 +45,30 @@ public class DepartmentsAPI implements Departments {
 
   private static final String DUPLICATE_FIELD_MESSAGE = "Department with this %s already exists";
 
+  private final CollectionService collectionService = new CollectionService();
+
   @Validate
   @Override
-  public void getDepartments(String query, int offset, int limit, String lang, Map<String, String> okapiHeaders,
-      Handler<AsyncResult<Response>> resultHandler, Context vertxContext) {
-
-    get(DEPARTMENTS_VIEW_NAME, Department.class, DepartmentCollection.class, query, offset, limit,
-      okapiHeaders, vertxContext, GetDepartmentsResponse.class, resultHandler);
+  public void getDepartments(String totalRecords, String query, int offset, int limit, String lang,
+      Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> resultHandler, Context vertxContext) {
+
+    // usageNumber is computed by the view, so the ETag must cover the whole content
+    var conditionalHandler = ConditionalGet.withContentEtag(okapiHeaders, resultHandler);
+    if (totalRecords == null) {
+      get(DEPARTMENTS_VIEW_NAME, Department.class, DepartmentCollection.class, query, offset, limit,
+        okapiHeaders, vertxContext, GetDepartmentsResponse.class, conditionalHandler);
+      return;
+    }
+    try {
+      collectionService.getPage(postgresClient(vertxContext, okapiHeaders), DEPARTMENTS_VIEW_NAME, Department.class,
+          query, offset, limit, TotalRecords.fromValue(totalRecords))
+        .onSuccess(page -> conditionalHandler.handle(Future.succeededFuture(GetDepartmentsResponse.respond200WithApplicationJson(
+          new DepartmentCollection().withDepartments(page.records()).withTotalRecords(page.totalRecords())))))
+        .onFailure(e -> resultHandler.handle(Future.succeededFuture(UsersAPI.response(query, e, lang,
+          GetDepartmentsResponse::respond400WithTextPlain, GetDepartmentsResponse::respond500WithTextPlain))));
+    } catch (IllegalArgumentException e) {
+      new FailureHandler(resultHandler, logger, GetDepartmentsResponse::respond400WithTextPlain).handleFailure(e);
+    }
   }
 
   @Validate
@@ -52,7 +77,8 @@ public class DepartmentsAPI implements Departments {
       Handler<AsyncResult<Response>> resultHandler, Context vertxContext) {
 
     post(DEPARTMENTS_TABLE_NAME, entity, okapiHeaders, vertxContext, PostDepartmentsResponse.class, result ->
-      handleUniqueConstraintViolation(result, entity, PostDepartmentsResponse::respond422WithApplicationJson, resultHandler)
+      handleUniqueConstraintViolation(result, entity, PostDepartmentsResponse::respond422WithApplicationJson,
+        invalidatingCache(okapiHeaders, entity.getId(), resultHandler))
     );
   }
 
@@ -63,7 +89,8 @@ public class DepartmentsAPI implements Departments {
                                            Handler<AsyncResult<Response>> resultHandler, Context vertxContext) {
     put(DEPARTMENTS_TABLE_NAME, entity, departmentId, okapiHeaders, vertxContext,
       PutDepartmentsByDepartmentIdResponse.class, result -> handleUniqueConstraintViolation(result, entity,
-        PutDepartmentsByDepartmentIdResponse::respond422WithApplicationJson, resultHandler)
+        PutDepartmentsByDepartmentIdResponse::respond422WithApplicationJson,
+        invalidatingCache(okapiHeaders, departmentId, resultHandler))
     );
   }
 
@@ -82,7 +109,20 @@ public class DepartmentsAPI implements Departments {
       Handler<AsyncResult<Response>> resultHandler, Context vertxContext) {
 
     deleteById(DEPARTMENTS_TABLE_NAME, departmentId, okapiHeaders, vertxContext,
-      DeleteDepartmentsByDepartmentIdResponse.class, resultHandler);
+      DeleteDepartmentsByDepartmentIdResponse.class, invalidatingCache(okapiHeaders, departmentId, resultHandler));
+  }
+
+  /**
+   * Tells the caches of all instances that the department has been written once the write has completed.
+   */
+  private static Handler<AsyncResult<Response>> invalidatingCache(Map<String, String> okapiHeaders,
+      String departmentId, Handler<AsyncResult<Response>> resultHandler) {
+
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    return result -> {
+      CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.DEPARTMENT, departmentId);
+      resultHandler.handle(result);
+    };
   }
 
   static void handleUniqueConstraintViolation(AsyncResult<Response> result, Department entity,
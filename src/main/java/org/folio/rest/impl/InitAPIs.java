@@ -7,13 +7,19 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.PgConnectOptions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.common.GenericCompositeFuture;
+import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.resource.interfaces.InitAPI;
+import org.folio.service.cache.CacheInvalidationBus;
 import org.folio.verticle.ConsortiumCreateEventConsumersVerticle;
 import org.folio.verticle.ConsortiumDeleteEventConsumersVerticle;
 import org.folio.verticle.ConsortiumUpdateEventConsumersVerticle;
+import org.folio.verticle.OutboxDispatcherVerticle;
+import org.folio.verticle.UserJobSweepVerticle;
 
 import java.util.Arrays;
 
@@ -26,7 +32,11 @@ public class InitAPIs implements InitAPI {
   public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> handler) {
     logger.info("InitAPI starting...");
     try {
-      deployConsumersVerticles(vertx)
+      PgConnectOptions connectOptions = connectOptions(vertx);
+      CacheInvalidationBus.getInstance().start(vertx, connectOptions);
+      deployOutboxDispatcherVerticle(vertx, connectOptions)
+        .compose(x -> deployUserJobSweepVerticle(vertx))
+        .compose(x -> deployConsumersVerticles(vertx))
         .map(true)
         .onComplete(handler)
         .onSuccess(x -> logger.info("Consumer Verticles were successfully started"))
@@ -37,6 +47,33 @@ public class InitAPIs implements InitAPI {
     }
   }
 
+  /**
+   * Options of the module database for the connections that LISTEN.
+   */
+  private static PgConnectOptions connectOptions(Vertx vertx) {
+    JsonObject config = PostgresClient.getInstance(vertx).getConnectionConfig();
+    return new PgConnectOptions()
+      .setHost(config.getString("host"))
+      .setPort(Integer.parseInt(String.valueOf(config.getValue("port", 5432))))
+      .setUser(config.getString("username"))
+      .setPassword(config.getString("password"))
+      .setDatabase(config.getString("database"));
+  }
+
+  /**
+   * The bus and the dispatcher keep trying to connect in the background, they don't hold up the
+   * start of the module.
+   */
+  private Future<String> deployOutboxDispatcherVerticle(Vertx vertx, PgConnectOptions connectOptions) {
+    return vertx.deployVerticle(new OutboxDispatcherVerticle(connectOptions))
+      .onSuccess(x -> logger.info("Outbox dispatcher verticle was successfully started"));
+  }
+
+  private Future<String> deployUserJobSweepVerticle(Vertx vertx) {
+    return vertx.deployVerticle(new UserJobSweepVerticle())
+      .onSuccess(x -> logger.info("User job sweep verticle was successfully started"));
+  }
+
   private Future<?> deployConsumersVerticles(Vertx vertx) {
     int usersConsortiumConsumerInstancesNumber = Integer.parseInt(getPropertyValue("users.consortium.kafka.consumer.instancesNumber", "1"));
 
@@ -7,6 +7,7 @@ import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.domain.TotalRecords;
 import org.folio.rest.jaxrs.model.Errors;
 import org.folio.rest.jaxrs.model.ProxiesFor;
 import org.folio.rest.jaxrs.model.ProxyforCollection;
@@ -16,6 +17,7 @@ import org.folio.rest.persist.Criteria.Criterion;
 import org.folio.rest.persist.PgUtil;
 import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.tools.utils.ValidationHelper;
+import org.folio.service.CollectionService;
 import org.folio.support.FailureHandler;
 
 import io.vertx.core.AsyncResult;
@@ -29,14 +31,31 @@ public class ProxiesForAPI implements Proxiesfor {
   public static final String PROXY_USERID_FIELD_NAME = "'proxyUserId'";
   private static final Logger logger = LogManager.getLogger(ProxiesForAPI.class);
 
+  private final CollectionService collectionService = new CollectionService();
+
   @Override
-  public void getProxiesfor(String query, int offset, int limit, String lang,
+  public void getProxiesfor(String totalRecords, String query, int offset, int limit, String lang,
     Map<String, String> okapiHeaders,
     Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
-    PgUtil.get(PROXY_FOR_TABLE, ProxiesFor.class, ProxyforCollection.class,
-      query, offset, limit, okapiHeaders, vertxContext,
-      GetProxiesforResponse.class, asyncResultHandler);
+    if (totalRecords == null) {
+      PgUtil.get(PROXY_FOR_TABLE, ProxiesFor.class, ProxyforCollection.class,
+        query, offset, limit, okapiHeaders, vertxContext,
+        GetProxiesforResponse.class, asyncResultHandler);
+      return;
+    }
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      GetProxiesforResponse::respond400WithTextPlain);
+    try {
+      collectionService.getPage(PgUtil.postgresClient(vertxContext, okapiHeaders), PROXY_FOR_TABLE, ProxiesFor.class,
+          query, offset, limit, TotalRecords.fromValue(totalRecords))
+        .onSuccess(page -> asyncResultHandler.handle(Future.succeededFuture(GetProxiesforResponse.respond200WithApplicationJson(
+          new ProxyforCollection().withProxiesFor(page.records()).withTotalRecords(page.totalRecords())))))
+        .onFailure(e -> asyncResultHandler.handle(Future.succeededFuture(UsersAPI.response(query, e, lang,
+          GetProxiesforResponse::respond400WithTextPlain, GetProxiesforResponse::respond500WithTextPlain))));
+    } catch (IllegalArgumentException e) {
+      failureHandler.handleFailure(e);
+    }
   }
 
   @Override
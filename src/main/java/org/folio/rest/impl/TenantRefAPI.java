@@ -10,6 +10,8 @@ import org.folio.dbschema.Versioned;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.TenantAttributes;
 import org.folio.rest.tools.utils.TenantLoading;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
 
 public class TenantRefAPI extends TenantAPI {
 
@@ -23,6 +25,8 @@ public class TenantRefAPI extends TenantAPI {
     return super.loadData(attributes, tenantId, headers, vertxContext)
         .compose(superRecordsLoaded -> {
           log.info("loading data to tenant");
+          // the schema may have been recreated, drop what has been cached for the tenant
+          CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.TENANT, null);
 
           TenantLoading tl = new TenantLoading();
 
@@ -1,14 +1,25 @@
 package org.folio.rest.impl;
 
+import static io.vertx.core.Future.succeededFuture;
+
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
+import org.folio.domain.TotalRecords;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Usergroup;
 import org.folio.rest.jaxrs.model.Usergroups;
 import org.folio.rest.jaxrs.resource.Groups;
 import org.folio.rest.persist.PgUtil;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.tools.utils.TenantTool;
+import org.folio.service.CollectionService;
+import org.folio.service.UsersService;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
+import org.folio.service.cache.SingleFlight;
+import org.folio.support.ConditionalGet;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
@@ -20,15 +31,33 @@ import io.vertx.core.Handler;
  */
 public class UserGroupAPI implements Groups {
   public static final String GROUP_TABLE = "groups";
+  // concurrent reads of the same group by id share one query
+  private static final SingleFlight<Usergroup> GROUP_READS = new SingleFlight<>();
+
+  private final CollectionService collectionService = new CollectionService();
 
   @Validate
   @Override
-  public void getGroups(String query, int offset, int limit,
+  public void getGroups(String totalRecords, String query, int offset, int limit,
       String lang, Map<String, String> okapiHeaders,
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
-    PgUtil.get(GROUP_TABLE, Usergroup.class, Usergroups.class, query, offset, limit, okapiHeaders,
-      vertxContext, GetGroupsResponse.class, asyncResultHandler);
+    var conditionalHandler = ConditionalGet.withEtag(okapiHeaders, asyncResultHandler);
+    if (totalRecords == null) {
+      PgUtil.get(GROUP_TABLE, Usergroup.class, Usergroups.class, query, offset, limit, okapiHeaders,
+        vertxContext, GetGroupsResponse.class, conditionalHandler);
+      return;
+    }
+    try {
+      collectionService.getPage(PgUtil.postgresClient(vertxContext, okapiHeaders), GROUP_TABLE, Usergroup.class,
+          query, offset, limit, TotalRecords.fromValue(totalRecords))
+        .onSuccess(page -> conditionalHandler.handle(succeededFuture(GetGroupsResponse.respond200WithApplicationJson(
+          new Usergroups().withUsergroups(page.records()).withTotalRecords(page.totalRecords())))))
+        .onFailure(e -> asyncResultHandler.handle(succeededFuture(UsersAPI.response(query, e, lang,
+          GetGroupsResponse::respond400WithTextPlain, GetGroupsResponse::respond500WithTextPlain))));
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler.handle(succeededFuture(GetGroupsResponse.respond400WithTextPlain(e.getMessage())));
+    }
   }
 
   @Validate
@@ -39,7 +68,7 @@ public class UserGroupAPI implements Groups {
       Context vertxContext) {
 
     PgUtil.post(GROUP_TABLE, entity, okapiHeaders, vertxContext,
-      PostGroupsResponse.class, asyncResultHandler);
+      PostGroupsResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
   }
 
   @Validate
@@ -47,8 +76,19 @@ public class UserGroupAPI implements Groups {
   public void getGroupsByGroupId(String groupId, String lang, Map<String, String> okapiHeaders,
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
-    PgUtil.getById(GROUP_TABLE, Usergroup.class, groupId, okapiHeaders, vertxContext,
-        GetGroupsByGroupIdResponse.class, asyncResultHandler);
+    if (!UsersService.isUuid(groupId)) {
+      PgUtil.getById(GROUP_TABLE, Usergroup.class, groupId, okapiHeaders, vertxContext,
+          GetGroupsByGroupIdResponse.class, asyncResultHandler);
+      return;
+    }
+    PostgresClient pgClient = PgUtil.postgresClient(vertxContext, okapiHeaders);
+    GROUP_READS.execute(SingleFlight.key(TenantTool.tenantId(okapiHeaders), groupId),
+        () -> pgClient.getById(GROUP_TABLE, groupId, Usergroup.class))
+      .onSuccess(group -> asyncResultHandler.handle(succeededFuture(group == null
+        ? GetGroupsByGroupIdResponse.respond404WithTextPlain("Not found")
+        : GetGroupsByGroupIdResponse.respond200WithApplicationJson(group))))
+      .onFailure(e -> asyncResultHandler.handle(succeededFuture(
+        GetGroupsByGroupIdResponse.respond500WithTextPlain(e.getMessage()))));
   }
 
   @Validate
@@ -57,7 +97,7 @@ public class UserGroupAPI implements Groups {
       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
     PgUtil.deleteById(GROUP_TABLE, groupId, okapiHeaders, vertxContext,
-      DeleteGroupsByGroupIdResponse.class, asyncResultHandler);
+      DeleteGroupsByGroupIdResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
   }
 
   @Validate
@@ -67,6 +107,19 @@ public class UserGroupAPI implements Groups {
       Context vertxContext) {
 
     PgUtil.put(GROUP_TABLE, entity, groupId, okapiHeaders, vertxContext,
-        PutGroupsByGroupIdResponse.class, asyncResultHandler);
+        PutGroupsByGroupIdResponse.class, invalidatingCache(okapiHeaders, asyncResultHandler));
+  }
+
+  /**
+   * Drops the cached patron group ids of the tenant once the write has completed.
+   */
+  private static Handler<AsyncResult<Response>> invalidatingCache(Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler) {
+
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    return result -> {
+      CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.GROUP, null);
+      asyncResultHandler.handle(result);
+    };
   }
 }
@@ -10,6 +10,7 @@ import static org.folio.event.service.UserTenantService.USERNAME_IS_NOT_POPULATE
 import static org.folio.rest.RestVerticle.STREAM_ABORT;
 import static org.folio.rest.RestVerticle.STREAM_COMPLETE;
 import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+import static org.folio.service.CollectionService.ALL_RECORDS_QUERY;
 import static org.folio.service.storage.ProfilePictureStorage.createSelectQuery;
 import static org.folio.support.UsersApiConstants.BARCODE_ALREADY_EXISTS;
 import static org.folio.support.UsersApiConstants.CONFIG_NAME;
@@ -23,6 +24,7 @@ import static org.folio.support.UsersApiConstants.ENABLED_OBJECT_STORAGE;
 import static org.folio.support.UsersApiConstants.ENCRYPTION_KEY;
 import static org.folio.support.UsersApiConstants.GET_CONFIG_SQL;
 import static org.folio.support.UsersApiConstants.ID;
+import static org.folio.support.UsersApiConstants.IF_MATCH_HEADER;
 import static org.folio.support.UsersApiConstants.INVALID_USERNAME_ERROR;
 import static org.folio.support.UsersApiConstants.INVALID_USER_TYPE_ERROR;
 import static org.folio.support.UsersApiConstants.JSONB;
@@ -35,29 +37,44 @@ import static org.folio.support.UsersApiConstants.TABLE_NAME_CONFIG;
 import static org.folio.support.UsersApiConstants.TABLE_NAME_PROFILE_PICTURE;
 import static org.folio.support.UsersApiConstants.TABLE_NAME_USERS;
 import static org.folio.support.UsersApiConstants.USERNAME_ALREADY_EXISTS;
+import static org.folio.support.UsersApiConstants.VERSION_CONFLICT_ERROR;
 import static org.folio.support.UsersApiConstants.VIEW_NAME_USER_GROUPS_JOIN;
+import static org.folio.support.UsersApiConstants.X_UNCHANGED_HEADER;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
 import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.pgclient.PgException;
 
@@ -66,6 +83,7 @@ import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.Tuple;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.apache.logging.log4j.LogManager;
@@ -73,21 +91,28 @@ import org.apache.logging.log4j.Logger;
 import org.folio.cql2pgjson.CQL2PgJSON;
 import org.folio.cql2pgjson.exception.CQL2PgJSONException;
 import org.folio.cql2pgjson.exception.FieldException;
+import org.folio.domain.TotalRecords;
 import org.folio.domain.UserType;
 import org.folio.event.service.UserTenantService;
 import org.folio.okapi.common.GenericCompositeFuture;
 import org.folio.rest.annotations.Stream;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Address;
-import org.folio.rest.jaxrs.model.AddressType;
 import org.folio.rest.jaxrs.model.Config;
 import org.folio.rest.jaxrs.model.Errors;
+import org.folio.rest.jaxrs.model.Parameter;
 import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserBatchRequest;
+import org.folio.rest.jaxrs.model.UserIdsRequest;
+import org.folio.rest.jaxrs.model.UserJob;
+import org.folio.rest.jaxrs.model.UserMergePatch;
+import org.folio.rest.jaxrs.model.UserBatchResponse;
+import org.folio.rest.jaxrs.model.UserBatchResult;
 import org.folio.rest.jaxrs.model.UserEvent;
+import org.folio.rest.jaxrs.model.UserdataCollection;
 import org.folio.rest.jaxrs.model.UsersGetOrder;
 import org.folio.rest.jaxrs.resource.Users;
-import org.folio.rest.persist.Criteria.Criteria;
-import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.persist.Conn;
 import org.folio.rest.persist.Criteria.Limit;
 import org.folio.rest.persist.Criteria.Offset;
 import org.folio.rest.persist.PgExceptionUtil;
@@ -96,18 +121,32 @@ import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.persist.cql.CQLWrapper;
 import org.folio.rest.tools.messages.MessageConsts;
 import org.folio.rest.tools.messages.Messages;
+import org.folio.rest.tools.utils.MetadataUtil;
 import org.folio.rest.tools.utils.TenantTool;
 import org.folio.rest.tools.utils.ValidationHelper;
 import org.folio.rest.utils.ExpirationTool;
 import org.folio.event.service.UserOutboxService;
+import org.folio.service.CollectionService;
+import org.folio.service.UserJobService;
 import org.folio.service.UsersService;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
+import org.folio.service.cache.CqlTranslationCache;
+import org.folio.service.cache.ReferenceDataCache;
+import org.folio.service.cache.SingleFlight;
+import org.folio.service.cache.UserCache;
 import org.folio.service.storage.ProfilePictureStorage;
+import org.folio.support.ConditionalGet;
 import org.folio.support.FailureHandler;
+import org.folio.support.JsonMergePatch;
 import org.folio.support.ProfilePictureHelper;
+import org.folio.support.UserDiff;
 import org.folio.validate.CustomFieldValidationException;
 import org.folio.validate.ValidationServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.z3950.zing.cql.CQLParseException;
+import org.z3950.zing.cql.CQLParser;
+import org.z3950.zing.cql.CQLSortNode;
 
 @Path("users")
 public class UsersAPI implements Users {
@@ -116,20 +155,35 @@ public class UsersAPI implements Users {
   private static final Messages messages = Messages.getInstance();
   @SuppressWarnings("deprecation")  // RAML requires Date
   private static final Date year1 = new Date(1 - 1900, 0 /* 0 .. 11 */, 1 /* 1 .. 31 */);
+  private static final String FIRST_PAGE_CURSOR = "*";
+  private static final Pattern PATRON_GROUP_PATTERN = Pattern.compile("(?i)patronGroup\\.");
+  private static final List<String> USER_GROUP_FIELDS = List.of(
+    VIEW_NAME_USER_GROUPS_JOIN + ".jsonb", VIEW_NAME_USER_GROUPS_JOIN + ".group_jsonb");
+  // concurrent reads of the same user by id share one query
+  private static final SingleFlight<String> USER_READS = new SingleFlight<>();
+  private static final Validator BEAN_VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
   private byte[] requestBytesArray = new byte[0];
 
   // Used when RMB instantiates this class
   private final UserOutboxService userOutboxService;
   private final UsersService usersService;
+  private final CollectionService collectionService;
+  private final UserJobService userJobService;
   private final UserTenantService userTenantService;
   private final ProfilePictureStorage profilePictureStorage;
+  private final UserCache userCache;
+  private final CacheInvalidationBus cacheInvalidationBus;
 
   @Autowired
   public UsersAPI() {
     this.profilePictureStorage = new ProfilePictureStorage();
     this.userOutboxService = new UserOutboxService();
     this.usersService = new UsersService();
+    this.collectionService = new CollectionService();
+    this.userJobService = new UserJobService(userOutboxService);
     this.userTenantService = new UserTenantService();
+    this.userCache = UserCache.getInstance();
+    this.cacheInvalidationBus = CacheInvalidationBus.getInstance();
   }
   /**
    * right now, just query the join view if a cql was passed in, otherwise work with the
@@ -154,22 +208,26 @@ public class UsersAPI implements Users {
    */
   private static String convertQuery(String cql){
     if (cql != null) {
-      return cql.replaceAll("(?i)patronGroup\\.", VIEW_NAME_USER_GROUPS_JOIN+".group_jsonb.");
+      return PATRON_GROUP_PATTERN.matcher(cql).replaceAll(VIEW_NAME_USER_GROUPS_JOIN+".group_jsonb.");
     }
     return cql;
   }
 
   public static CQLWrapper getCQL(String query, int limit, int offset) throws CQL2PgJSONException {
+    return getCQL(query).setLimit(new Limit(limit)).setOffset(new Offset(offset));
+  }
+
+  /**
+   * @return the query without limit and offset, e.g. for counting
+   */
+  static CQLWrapper getCQL(String query) throws CQL2PgJSONException {
     if (query != null && query.contains("patronGroup.")) {
       query = convertQuery(query);
-      List<String> fields = new LinkedList<>();
-      fields.add(VIEW_NAME_USER_GROUPS_JOIN + ".jsonb");
-      fields.add(VIEW_NAME_USER_GROUPS_JOIN + ".group_jsonb");
-      CQL2PgJSON cql2pgJson = new CQL2PgJSON(fields);
-      return new CQLWrapper(cql2pgJson, query).setLimit(new Limit(limit)).setOffset(new Offset(offset));
+      CQL2PgJSON cql2pgJson = CqlTranslationCache.getInstance().getTranslator(USER_GROUP_FIELDS);
+      return new CQLWrapper(cql2pgJson, query);
     } else {
-      CQL2PgJSON cql2pgJson = new CQL2PgJSON(TABLE_NAME_USERS+".jsonb");
-      return new CQLWrapper(cql2pgJson, query).setLimit(new Limit(limit)).setOffset(new Offset(offset));
+      CQL2PgJSON cql2pgJson = CqlTranslationCache.getInstance().getTranslator(TABLE_NAME_USERS+".jsonb");
+      return new CQLWrapper(cql2pgJson, query);
     }
   }
 
@@ -196,7 +254,7 @@ public class UsersAPI implements Users {
 
   @Validate
   @Override
-  public void getUsers(String query, String orderBy,
+  public void getUsers(String cursor, String totalRecords, String fields, String query, String orderBy,
       UsersGetOrder order, int offset, int limit,
       String lang, RoutingContext routingContext, Map<String, String> okapiHeaders,
       Handler<AsyncResult<Response>> asyncResultHandler,
@@ -204,12 +262,38 @@ public class UsersAPI implements Users {
 
     try {
       logger.debug("Getting users");
+      TotalRecords totalRecordsMode;
+      try {
+        totalRecordsMode = TotalRecords.fromValue(totalRecords);
+      } catch (IllegalArgumentException e) {
+        asyncResultHandler.handle(succeededFuture(GetUsersResponse.respond400WithTextPlain(e.getMessage())));
+        return;
+      }
+      if (cursor != null) {
+        getUsersByCursor(cursor, totalRecordsMode, fields, query, limit, lang, okapiHeaders, asyncResultHandler, vertxContext);
+        return;
+      }
       // note that orderBy is NOT used
       String tableName = getTableName(query);
       CQLWrapper cql = getCQL(query, limit, offset);
 
-      PgUtil.streamGet(tableName, User.class, cql, emptyList(), TABLE_NAME_USERS,
-        routingContext, okapiHeaders, vertxContext);
+      CQLWrapper countCql = getCQL(StringUtils.defaultIfBlank(query, ALL_RECORDS_QUERY));
+
+      if (fields != null) {
+        getUsersPage(tableName, cql, countCql, ObjectUtils.defaultIfNull(totalRecordsMode, TotalRecords.ESTIMATED),
+          fields, null, query, lang, okapiHeaders, asyncResultHandler, vertxContext);
+        return;
+      }
+
+      // nothing is transformed, the stored jsonb is written to the response as it is
+      collectionService.streamPage(PgUtil.postgresClient(vertxContext, okapiHeaders), tableName, TABLE_NAME_USERS,
+          cql, countCql, totalRecordsMode, routingContext.response())
+        .onFailure(e -> {
+          logger.error(query, e);
+          asyncResultHandler.handle(succeededFuture(response(query, e, lang,
+            GetUsersResponse::respond400WithTextPlain,
+            GetUsersResponse::respond500WithTextPlain)));
+        });
     } catch (Exception e) {
       logger.error(query, e);
       Response response = response(query, e, lang,
@@ -219,6 +303,124 @@ public class UsersAPI implements Users {
     }
   }
 
+  /**
+   * Keyset pagination: returns the users sorted by id that come after the id encoded in the cursor,
+   * so the cost of a page doesn't depend on how deep it is.
+   */
+  private void getUsersByCursor(String cursor, TotalRecords totalRecords, String fields, String query, int limit, String lang,
+      Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+      Context vertxContext) throws CQL2PgJSONException, CQLParseException, IOException {
+
+    if (query != null && new CQLParser().parse(query) instanceof CQLSortNode) {
+      asyncResultHandler.handle(succeededFuture(GetUsersResponse.respond400WithTextPlain(
+        "The cursor parameter can't be combined with sortBy, the results are sorted by id")));
+      return;
+    }
+    String lastId = decodeCursor(cursor);
+    if (lastId != null && !UsersService.isUuid(lastId)) {
+      asyncResultHandler.handle(succeededFuture(GetUsersResponse.respond400WithTextPlain(
+        "Invalid cursor: " + cursor)));
+      return;
+    }
+
+    String filter = "(" + StringUtils.defaultIfBlank(query, ALL_RECORDS_QUERY) + ")";
+    String cursorQuery = filter
+      + (lastId == null ? "" : " and id > \"" + lastId + "\"")
+      + " sortBy id";
+
+    getUsersPage(getTableName(query), getCQL(cursorQuery, limit, 0), getCQL(filter),
+      ObjectUtils.defaultIfNull(totalRecords, TotalRecords.ESTIMATED),
+      fields, limit, query, lang, okapiHeaders, asyncResultHandler, vertxContext);
+  }
+
+  /**
+   * Responds with a page of users, its totalRecords calculated as requested.
+   *
+   * @param fields comma separated fields to project the users to, null for whole users
+   * @param cursorLimit the limit of a cursor page, a nextCursor is added when the page is full;
+   *   null when not paging by cursor
+   */
+  private void getUsersPage(String tableName, CQLWrapper pageCql, CQLWrapper countCql,
+      TotalRecords totalRecords, String fields, Integer cursorLimit, String query, String lang,
+      Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+      Context vertxContext) {
+
+    var postgresClient = PgUtil.postgresClient(vertxContext, okapiHeaders);
+    Future<Response> response;
+
+    if (fields == null) {
+      response = collectionService.getPage(postgresClient, tableName, User.class, pageCql, countCql, totalRecords)
+        .map(page -> {
+          List<User> users = page.records();
+          var collection = new UserdataCollection()
+            .withUsers(users)
+            .withTotalRecords(page.totalRecords());
+          if (isFullCursorPage(cursorLimit, users.size())) {
+            collection.setNextCursor(encodeCursor(users.get(users.size() - 1).getId()));
+          }
+          return GetUsersResponse.respond200WithApplicationJson(collection);
+        });
+    } else {
+      String projection;
+      try {
+        var fieldList = new ArrayList<>(List.of(fields.split(",")));
+        fieldList.add(ID);
+        projection = CollectionService.buildJsonbProjection(fieldList);
+      } catch (IllegalArgumentException e) {
+        asyncResultHandler.handle(succeededFuture(GetUsersResponse.respond400WithTextPlain(e.getMessage())));
+        return;
+      }
+      response = collectionService.getProjectedPage(postgresClient, tableName, projection, pageCql, countCql, totalRecords)
+        .map(page -> {
+          // the records are JSON text built by the database, they are passed through without parsing
+          var body = new StringBuilder("{\"users\":[")
+            .append(String.join(",", page.records()))
+            .append(']');
+          if (page.totalRecords() != null) {
+            body.append(",\"totalRecords\":").append(page.totalRecords());
+          }
+          if (isFullCursorPage(cursorLimit, page.records().size())) {
+            body.append(",\"nextCursor\":\"").append(encodeCursor(page.lastId())).append('"');
+          }
+          body.append('}');
+          return Response.ok(body.toString(), MediaType.APPLICATION_JSON).build();
+        });
+    }
+
+    response
+      .onSuccess(r -> asyncResultHandler.handle(succeededFuture(r)))
+      .onFailure(e -> {
+        logger.error(query, e);
+        asyncResultHandler.handle(succeededFuture(response(query, e, lang,
+          GetUsersResponse::respond400WithTextPlain,
+          GetUsersResponse::respond500WithTextPlain)));
+      });
+  }
+
+  private static boolean isFullCursorPage(Integer cursorLimit, int size) {
+    return cursorLimit != null && cursorLimit > 0 && size == cursorLimit;
+  }
+
+  private static String encodeCursor(String userId) {
+    return Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(userId.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the id of the last user of the previous page, null for the first page
+   *  and an empty string if the cursor can't be decoded
+   */
+  private static String decodeCursor(String cursor) {
+    if (FIRST_PAGE_CURSOR.equals(cursor)) {
+      return null;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
   private void removeCustomFieldIfEmpty(User entity) {
     var customField = (entity.getCustomFields() != null) ?
       entity.getCustomFields().getAdditionalProperties() : null;
@@ -313,7 +515,7 @@ public class UsersAPI implements Users {
     entity.setUpdatedDate(now);
     String userId = StringUtils.defaultIfBlank(entity.getId(), UUID.randomUUID().toString());
 
-    pgClient.withTrans(conn -> userTenantService.validateUserAcrossTenants(entity, okapiHeaders, conn, vertxContext)
+    pgClient.withTrans(conn -> userTenantService.validateUserAcrossTenants(entity, okapiHeaders, vertxContext)
         .compose(aVoid -> conn.saveAndReturnUpdatedEntity(TABLE_NAME_USERS, userId, entity.withId(userId))
           .compose(user -> userOutboxService.saveUserOutboxLogForCreateUser(conn, user, UserEvent.Action.CREATE, okapiHeaders))
           .map(isUserOutboxLogCreated -> PostUsersResponse.respond201WithApplicationJson(entity, PostUsersResponse.headersFor201().withLocation(userId)))
@@ -322,7 +524,7 @@ public class UsersAPI implements Users {
       .onComplete(reply -> {
         if (reply.succeeded()) {
           logger.debug("Save successful");
-          userOutboxService.processOutboxEventLogs(vertxContext.owner(), okapiHeaders);
+          cacheInvalidationBus.invalidate(TenantTool.tenantId(okapiHeaders), EntityType.USER, userId);
           asyncResultHandler.handle(reply);
           return;
         }
@@ -408,6 +610,11 @@ public class UsersAPI implements Users {
     return isDesiredError(reply, USERNAME_IS_NOT_POPULATED);
   }
 
+  private boolean isUserAcrossTenantsError(String errorMessage) {
+    return errorMessage != null && (isDuplicateUsernameError(errorMessage)
+      || isInvalidUserTypeError(errorMessage) || isInvalidUsernameError(errorMessage));
+  }
+
   private boolean isDesiredError(AsyncResult<Response> reply, String errMsg) {
     if (reply.succeeded()) {
       if (reply.result().getStatus() == 400) {
@@ -432,8 +639,41 @@ public class UsersAPI implements Users {
       Handler<AsyncResult<Response>> asyncResultHandler,
       Context vertxContext) {
 
-    PgUtil.getById(getTableName(null), User.class, userId, okapiHeaders, vertxContext,
-      GetUsersByUserIdResponse.class, asyncResultHandler);
+    var conditionalHandler = ConditionalGet.withEtag(okapiHeaders, asyncResultHandler);
+    if (!UsersService.isUuid(userId)) {
+      PgUtil.getById(getTableName(null), User.class, userId, okapiHeaders, vertxContext,
+        GetUsersByUserIdResponse.class, conditionalHandler);
+      return;
+    }
+    PostgresClient pgClient = PgUtil.postgresClient(vertxContext, okapiHeaders);
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    userCache.get(tenantId, userId, () -> USER_READS.execute(SingleFlight.key(tenantId, userId),
+        () -> pgClient.getById(TABLE_NAME_USERS, userId).map(json -> json == null ? null : json.encode())))
+      .map(json -> json == null
+        ? GetUsersByUserIdResponse.respond404WithTextPlain("Not found")
+        : Response.ok(json, MediaType.APPLICATION_JSON).build())
+      .onComplete(reply -> {
+        if (reply.failed()) {
+          logger.error(reply.cause().getMessage(), reply.cause());
+          conditionalHandler.handle(succeededFuture(
+            GetUsersByUserIdResponse.respond500WithTextPlain(reply.cause().getMessage())));
+          return;
+        }
+        conditionalHandler.handle(reply);
+      });
+  }
+
+  /**
+   * Drops the cached user once a write of it has completed, successful or not.
+   */
+  private Handler<AsyncResult<Response>> invalidatingCachedUser(Map<String, String> okapiHeaders, String userId,
+      Handler<AsyncResult<Response>> asyncResultHandler) {
+
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    return result -> {
+      cacheInvalidationBus.invalidate(tenantId, EntityType.USER, userId);
+      asyncResultHandler.handle(result);
+    };
   }
 
   @Validate
@@ -454,10 +694,7 @@ public class UsersAPI implements Users {
             return succeededFuture(DeleteUsersByUserIdResponse.respond404WithTextPlain(userId));
           }
         }))
-        .onComplete(reply -> {
-          userOutboxService.processOutboxEventLogs(vertxContext.owner(), okapiHeaders);
-          asyncResultHandler.handle(reply);
-        });
+        .onComplete(invalidatingCachedUser(okapiHeaders, userId, asyncResultHandler));
   }
 
   @Validate
@@ -480,10 +717,7 @@ public class UsersAPI implements Users {
         }))
         .map(bVoid -> DeleteUsersByUserIdResponse.respond204())
         .map(Response.class::cast)
-        .onComplete(reply -> {
-          userOutboxService.processOutboxEventLogs(vertxContext.owner(), okapiHeaders);
-          asyncResultHandler.handle(reply);
-        });
+        .onComplete(invalidatingCachedUser(okapiHeaders, null, asyncResultHandler));
     } catch (CQL2PgJSONException e) {
       throw new IllegalArgumentException("Invalid query", e);
     }
@@ -545,7 +779,8 @@ public class UsersAPI implements Users {
                     "All addresses types defined for users must be existing")));
               } else {
                 validatePatronGroup(entity.getPatronGroup(), postgresClient, asyncResultHandler,
-                  handler -> updateUser(entity, okapiHeaders, postgresClient, asyncResultHandler, vertxContext));
+                  handler -> updateUser(entity, okapiHeaders, postgresClient,
+                    invalidatingCachedUser(okapiHeaders, userId, asyncResultHandler), vertxContext));
               }
               return succeededFuture();
             });
@@ -569,6 +804,150 @@ public class UsersAPI implements Users {
     }
   }
 
+  @Validate
+  @Override
+  public void patchUsersByUserId(String userId, UserMergePatch entity, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      PatchUsersByUserIdResponse::respond500WithTextPlain);
+
+    try {
+      JsonObject patch = new JsonObject(entity.getAdditionalProperties());
+      if (JsonMergePatch.touches(patch, ID) && !userId.equals(patch.getValue(ID))) {
+        asyncResultHandler.handle(succeededFuture(
+          PatchUsersByUserIdResponse.respond400WithTextPlain("You cannot change the value of the id field")));
+        return;
+      }
+      PostgresClient pgClient = PgUtil.postgresClient(vertxContext, okapiHeaders);
+
+      pgClient.withTrans(conn -> usersService.getUserByIdForUpdate(conn, userId)
+        .compose(userFromStorage -> {
+          if (userFromStorage == null) {
+            return succeededFuture(PatchUsersByUserIdResponse.respond404WithTextPlain(userId));
+          }
+          User user = JsonMergePatch.apply(JsonObject.mapFrom(userFromStorage), patch).mapTo(User.class);
+          return validatePatchedUser(user, patch, pgClient, okapiHeaders, vertxContext)
+            .compose(errorResponse -> {
+              if (errorResponse != null) {
+                return succeededFuture(errorResponse);
+              }
+              if (UserDiff.isUnchanged(user, userFromStorage)) {
+                return succeededFuture(unchangedUserResponse());
+              }
+              try {
+                user.setUpdatedDate(new Date());
+                MetadataUtil.populateMetadata(user, okapiHeaders);
+              } catch (ReflectiveOperationException e) {
+                return failedFuture(e);
+              }
+              return userTenantService.validateUserAcrossTenants(user, userFromStorage, okapiHeaders, vertxContext)
+                .compose(aVoid -> usersService.updateUser(conn, user))
+                .compose(updatedUser -> userOutboxService.saveUserOutboxLogForUpdateUser(conn, updatedUser, userFromStorage, okapiHeaders))
+                .map(isUserOutboxLogSaved -> PatchUsersByUserIdResponse.respond204());
+            });
+        }))
+        .onComplete(reply -> {
+          cacheInvalidationBus.invalidate(TenantTool.tenantId(okapiHeaders), EntityType.USER, userId);
+          if (reply.succeeded()) {
+            asyncResultHandler.handle(reply);
+          } else if (reply.cause() instanceof CustomFieldValidationException customFieldValidationException) {
+            asyncResultHandler.handle(succeededFuture(
+              PatchUsersByUserIdResponse.respond422WithApplicationJson(customFieldValidationException.getErrors())));
+          } else if (reply.cause() instanceof IllegalArgumentException) {
+            asyncResultHandler.handle(succeededFuture(
+              PatchUsersByUserIdResponse.respond400WithTextPlain(reply.cause().getMessage())));
+          } else {
+            handleUpdateUserFailures(new User().withId(userId), asyncResultHandler, reply);
+          }
+        });
+    } catch (Exception e) {
+      failureHandler.handleFailure(e);
+    }
+  }
+
+  /**
+   * Runs the validations of PUT on the patched user: the constraints of the user schema, that the
+   * request body of a PATCH is not checked against, and the checks of the fields the patch touches.
+   *
+   * @return future with the error response, null if the patched user is valid
+   */
+  private Future<Response> validatePatchedUser(User user, JsonObject patch, PostgresClient pgClient,
+      Map<String, String> okapiHeaders, Context vertxContext) {
+
+    Errors schemaErrors = validateSchemaConstraints(user);
+    if (schemaErrors != null) {
+      return succeededFuture(PatchUsersByUserIdResponse.respond422WithApplicationJson(schemaErrors));
+    }
+    if ((JsonMergePatch.touches(patch, "personal") || JsonMergePatch.touches(patch, "type"))
+        && isProfilePictureLinkPresentForShadow(user)) {
+      return succeededFuture(PatchUsersByUserIdResponse.respond500WithTextPlain(PROFILE_PICTURE_FOR_SHADOW_USER_ERROR_MSG));
+    }
+    if (JsonMergePatch.touches(patch, "personal.dateOfBirth")) {
+      var dateOfBirthError = validateDateOfBirth(user);
+      if (dateOfBirthError != null) {
+        return succeededFuture(PatchUsersByUserIdResponse.respond400WithTextPlain(dateOfBirthError));
+      }
+    }
+    if (JsonMergePatch.touches(patch, "personal.addresses")
+        && new AddressValidator().hasMultipleAddressesWithSameType(user)) {
+      return succeededFuture(PatchUsersByUserIdResponse.respond400WithTextPlain(
+        "Users are limited to one address per addresstype"));
+    }
+    if (JsonMergePatch.touches(patch, "username") && user.getUsername() != null) {
+      trimWhiteSpaceInUsername(user);
+    }
+
+    Future<Response> result = succeededFuture();
+    if (JsonMergePatch.touches(patch, "customFields")) {
+      removeCustomFieldIfEmpty(user);
+      result = new ValidationServiceImpl(vertxContext)
+        .validateCustomFields(getCustomFields(user), TenantTool.tenantId(okapiHeaders))
+        .map(v -> null);
+    }
+    if (JsonMergePatch.touches(patch, "personal.addresses")) {
+      result = result.compose(errorResponse -> errorResponse != null
+        ? succeededFuture(errorResponse)
+        : checkAllAddressTypesValid(user, pgClient)
+        .map(valid -> Boolean.FALSE.equals(valid)
+          ? PatchUsersByUserIdResponse.respond400WithTextPlain("All addresses types defined for users must be existing")
+          : null));
+    }
+    if (JsonMergePatch.touches(patch, "patronGroup")) {
+      result = result.compose(errorResponse -> errorResponse != null
+        ? succeededFuture(errorResponse)
+        : patronGroupExists(user.getPatronGroup(), pgClient)
+          .map(exists -> Boolean.TRUE.equals(exists)
+            ? null
+            : PatchUsersByUserIdResponse.respond400WithTextPlain(
+              "Cannot add " + user.getPatronGroup() + ". Patron group not found")));
+    }
+    return result;
+  }
+
+  /**
+   * Checks the bean constraints generated from the user schema, the same way as the request body
+   * of a PUT is checked.
+   *
+   * @return the errors, null if the user satisfies all constraints
+   */
+  private static Errors validateSchemaConstraints(User user) {
+    Set<ConstraintViolation<User>> violations = BEAN_VALIDATOR.validate(user);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    List<org.folio.rest.jaxrs.model.Error> errors = violations.stream()
+      .map(violation -> new org.folio.rest.jaxrs.model.Error()
+        .withMessage(violation.getMessage())
+        .withType("1")
+        .withCode("-1")
+        .withParameters(List.of(new Parameter()
+          .withKey(violation.getPropertyPath().toString())
+          .withValue(String.valueOf(violation.getInvalidValue())))))
+      .toList();
+    return new Errors().withErrors(errors).withTotalRecords(errors.size());
+  }
+
   private boolean isProfilePictureLinkPresentForShadow(User entity) {
     if (Objects.nonNull(entity) && Objects.nonNull(entity.getPersonal()) && Objects.nonNull(entity.getType())) {
       return entity.getType().equals(SHADOW.getTypeName()) && Objects.nonNull(entity.getPersonal().getProfilePictureLink());
@@ -576,6 +955,406 @@ public class UsersAPI implements Users {
     return false;
   }
 
+  @Validate
+  @Override
+  public void postUsersJobs(UserJob entity, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      PostUsersJobsResponse::respond500WithTextPlain);
+
+    userJobService.submitJob(entity, okapiHeaders, vertxContext.owner())
+      .onSuccess(job -> asyncResultHandler.handle(succeededFuture(PostUsersJobsResponse.respond202WithApplicationJson(job))))
+      .onFailure(cause -> {
+        if (cause instanceof IllegalArgumentException) {
+          asyncResultHandler.handle(succeededFuture(PostUsersJobsResponse.respond400WithTextPlain(cause.getMessage())));
+          return;
+        }
+        failureHandler.handleFailure(cause);
+      });
+  }
+
+  @Validate
+  @Override
+  public void getUsersJobsByJobId(String jobId, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      GetUsersJobsByJobIdResponse::respond500WithTextPlain);
+
+    userJobService.getJob(jobId, okapiHeaders, vertxContext.owner())
+      .onSuccess(job -> asyncResultHandler.handle(succeededFuture(job == null
+        ? GetUsersJobsByJobIdResponse.respond404WithTextPlain("Job not found: " + jobId)
+        : GetUsersJobsByJobIdResponse.respond200WithApplicationJson(job))))
+      .onFailure(failureHandler::handleFailure);
+  }
+
+  @Validate
+  @Override
+  public void getUsersIdentifiersResolve(String identifier, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      GetUsersIdentifiersResolveResponse::respond500WithTextPlain);
+
+    try {
+      usersService.resolveUserByIdentifier(PgUtil.postgresClient(vertxContext, okapiHeaders),
+          TenantTool.tenantId(okapiHeaders), identifier)
+        .onSuccess(resolved -> {
+          if (resolved == null) {
+            asyncResultHandler.handle(succeededFuture(GetUsersIdentifiersResolveResponse
+              .respond404WithTextPlain("No user with barcode, username or externalSystemId " + identifier)));
+            return;
+          }
+          logger.debug("getUsersIdentifiersResolve:: matched {}", resolved.matchedField());
+          String body = "{\"matchedField\":\"" + resolved.matchedField() + "\",\"user\":" + resolved.userJson() + "}";
+          asyncResultHandler.handle(succeededFuture(Response.ok(body, MediaType.APPLICATION_JSON).build()));
+        })
+        .onFailure(failureHandler::handleFailure);
+    } catch (Exception e) {
+      failureHandler.handleFailure(e);
+    }
+  }
+
+  @Validate
+  @Override
+  public void postUsersByIds(UserIdsRequest entity, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      PostUsersByIdsResponse::respond500WithTextPlain);
+
+    try {
+      Set<String> ids = entity.getIds().stream()
+        .map(id -> id.toLowerCase(Locale.ROOT))
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+
+      usersService.getUsersJsonByIds(PgUtil.postgresClient(vertxContext, okapiHeaders),
+          TenantTool.tenantId(okapiHeaders), ids)
+        .onSuccess(users -> {
+          logger.debug("postUsersByIds:: found {} of {} users", users.size(), ids.size());
+          // the stored jsonb is passed through without parsing
+          String body = "{\"users\":[" + String.join(",", users) + "],\"totalRecords\":" + users.size() + "}";
+          asyncResultHandler.handle(succeededFuture(Response.ok(body, MediaType.APPLICATION_JSON).build()));
+        })
+        .onFailure(failureHandler::handleFailure);
+    } catch (Exception e) {
+      failureHandler.handleFailure(e);
+    }
+  }
+
+  @Validate
+  @Override
+  public void postUsersBatch(UserBatchRequest entity, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    final var failureHandler = new FailureHandler(asyncResultHandler, logger,
+      PostUsersBatchResponse::respond500WithTextPlain);
+
+    try {
+      String tenantId = TenantTool.tenantId(okapiHeaders);
+      PostgresClient postgresClient = PgUtil.postgresClient(vertxContext, okapiHeaders);
+      List<UserBatchResult> results = new ArrayList<>();
+      Map<String, User> candidates = new LinkedHashMap<>();
+      Map<String, UserBatchResult> resultsById = new HashMap<>();
+
+      prepareBatchUsers(entity.getUsers(), results, candidates, resultsById);
+
+      validateBatchCustomFields(candidates, resultsById, tenantId, vertxContext)
+        .compose(v -> validateBatchReferences(candidates, resultsById, postgresClient))
+        .compose(v -> validateBatchUniqueness(candidates, resultsById, postgresClient, tenantId))
+        .compose(v -> saveUserBatch(candidates, resultsById, okapiHeaders, postgresClient, vertxContext))
+        .onComplete(v -> cacheInvalidationBus.invalidate(tenantId, EntityType.USER, null))
+        .onSuccess(v -> {
+          logger.info("postUsersBatch:: {} of {} users have been saved", candidates.size(), results.size());
+          asyncResultHandler.handle(succeededFuture(PostUsersBatchResponse.respond200WithApplicationJson(
+            new UserBatchResponse().withResults(results).withTotalRecords(results.size()))));
+        })
+        .onFailure(cause -> {
+          logger.error("postUsersBatch failed: {}", cause.getMessage(), cause);
+          ValidationHelper.handleError(cause, asyncResultHandler);
+        });
+    } catch (Exception e) {
+      failureHandler.handleFailure(e);
+    }
+  }
+
+  /**
+   * Runs the checks that need no database on every user of the batch, including duplicate ids
+   * within the batch. Users that pass become candidates, the others get a failed result.
+   */
+  private void prepareBatchUsers(List<User> users, List<UserBatchResult> results,
+      Map<String, User> candidates, Map<String, UserBatchResult> resultsById) {
+
+    final var addressValidator = new AddressValidator();
+
+    for (User user : users) {
+      if (StringUtils.isBlank(user.getId())) {
+        user.setId(UUID.randomUUID().toString());
+      }
+      if (StringUtils.isNotBlank(user.getUsername())) {
+        trimWhiteSpaceInUsername(user);
+      }
+      removeCustomFieldIfEmpty(user);
+
+      UserBatchResult result = new UserBatchResult().withId(user.getId());
+      results.add(result);
+
+      String error = validateBatchUser(user, addressValidator, resultsById.keySet());
+      if (error != null) {
+        result.withStatus(UserBatchResult.Status.FAILED).withErrorMessage(error);
+        continue;
+      }
+      candidates.put(user.getId(), user);
+      resultsById.put(user.getId(), result);
+    }
+  }
+
+  private String validateBatchUser(User user, AddressValidator addressValidator, Set<String> ids) {
+
+    if (!UsersService.isUuid(user.getId())) {
+      return "User id must be a UUID";
+    }
+    if (ids.contains(user.getId())) {
+      return DUPLICATE_ID_ERROR;
+    }
+    if (isProfilePictureLinkPresentForShadow(user)) {
+      return PROFILE_PICTURE_FOR_SHADOW_USER_ERROR_MSG;
+    }
+    var dateOfBirthError = validateDateOfBirth(user);
+    if (dateOfBirthError != null) {
+      return dateOfBirthError;
+    }
+    if (addressValidator.hasMultipleAddressesWithSameType(user)) {
+      return "Users are limited to one address per addresstype";
+    }
+    return null;
+  }
+
+  private Future<Void> validateBatchCustomFields(Map<String, User> candidates,
+      Map<String, UserBatchResult> resultsById, String tenantId, Context vertxContext) {
+
+    final var validationService = new ValidationServiceImpl(vertxContext);
+    List<Future<Void>> futures = new ArrayList<>();
+
+    for (User user : new ArrayList<>(candidates.values())) {
+      futures.add(validationService.validateCustomFields(getCustomFields(user), tenantId)
+        .<Void>mapEmpty()
+        .recover(e -> {
+          if (e instanceof CustomFieldValidationException customFieldValidationException) {
+            String message = customFieldValidationException.getErrors().getErrors().stream()
+              .map(org.folio.rest.jaxrs.model.Error::getMessage)
+              .collect(Collectors.joining("; "));
+            failBatchUser(candidates, resultsById, user.getId(), message);
+            return succeededFuture();
+          }
+          return failedFuture(e);
+        }));
+    }
+    return GenericCompositeFuture.all(futures).mapEmpty();
+  }
+
+  /**
+   * Checks the address types and patron groups of all candidates against the cached reference data.
+   */
+  private Future<Void> validateBatchReferences(Map<String, User> candidates,
+      Map<String, UserBatchResult> resultsById, PostgresClient postgresClient) {
+
+    Set<String> addressTypeIds = candidates.values().stream()
+      .flatMap(user -> getAddressTypeIds(user).stream())
+      .collect(Collectors.toSet());
+    Set<String> patronGroupIds = candidates.values().stream()
+      .map(User::getPatronGroup)
+      .filter(Objects::nonNull)
+      .collect(Collectors.toSet());
+
+    Future<Set<String>> existingAddressTypeIds = addressTypeIds.isEmpty()
+      ? succeededFuture(Set.of()) : ReferenceDataCache.getInstance().getAddressTypeIds(postgresClient);
+    Future<Set<String>> existingPatronGroupIds = patronGroupIds.isEmpty()
+      ? succeededFuture(Set.of()) : ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+
+    return GenericCompositeFuture.all(List.of(existingAddressTypeIds, existingPatronGroupIds))
+      .compose(v -> {
+        for (User user : new ArrayList<>(candidates.values())) {
+          if (!existingAddressTypeIds.result().containsAll(getAddressTypeIds(user))) {
+            failBatchUser(candidates, resultsById, user.getId(),
+              "You cannot add addresses with non-existent address types");
+          } else if (user.getPatronGroup() != null && !existingPatronGroupIds.result().contains(user.getPatronGroup())) {
+            failBatchUser(candidates, resultsById, user.getId(),
+              "Cannot add " + user.getPatronGroup() + ". Patron group not found");
+          }
+        }
+        return succeededFuture();
+      });
+  }
+
+  /**
+   * Rejects candidates whose username or barcode is already taken by another user or by an earlier
+   * candidate of the batch. The values are compared without case and accents like the unique
+   * indexes, by the database.
+   *
+   * <p>The unique indexes are checked row by row while the batch is written, so a value can't be
+   * handed over from one user to another within a batch: a candidate that takes the value another
+   * candidate gives up is rejected, it can be saved by a later batch.
+   */
+  private Future<Void> validateBatchUniqueness(Map<String, User> candidates,
+      Map<String, UserBatchResult> resultsById, PostgresClient postgresClient, String tenantId) {
+
+    Set<String> usernames = candidates.values().stream()
+      .map(User::getUsername)
+      .filter(StringUtils::isNotBlank)
+      .collect(Collectors.toSet());
+    Set<String> barcodes = candidates.values().stream()
+      .map(User::getBarcode)
+      .filter(StringUtils::isNotBlank)
+      .collect(Collectors.toSet());
+    Set<String> keys = new HashSet<>(usernames);
+    keys.addAll(barcodes);
+
+    // an owner is returned with the value as it has been passed, so the values of the candidates
+    // are looked up unchanged
+    Future<List<User>> owners = usersService.findUsernameAndBarcodeOwners(postgresClient, tenantId, usernames, barcodes);
+    Future<Map<String, String>> normalizedKeys = usersService.normalizeUniqueKeys(postgresClient, keys);
+    return GenericCompositeFuture.all(List.of(owners, normalizedKeys))
+      .compose(v -> {
+        Map<String, Set<String>> usernameOwners = new HashMap<>();
+        Map<String, Set<String>> barcodeOwners = new HashMap<>();
+        owners.result().forEach(owner -> {
+          if (owner.getUsername() != null) {
+            usernameOwners.computeIfAbsent(owner.getUsername(), key -> new HashSet<>()).add(owner.getId());
+          }
+          if (owner.getBarcode() != null) {
+            barcodeOwners.computeIfAbsent(owner.getBarcode(), key -> new HashSet<>()).add(owner.getId());
+          }
+        });
+
+        Set<String> batchUsernames = new HashSet<>();
+        Set<String> batchBarcodes = new HashSet<>();
+        for (User user : new ArrayList<>(candidates.values())) {
+          String username = normalizedKeys.result().get(user.getUsername());
+          String barcode = normalizedKeys.result().get(user.getBarcode());
+          if (isOwnedByOtherUser(usernameOwners, user.getUsername(), user.getId())
+              || username != null && batchUsernames.contains(username)) {
+            failBatchUser(candidates, resultsById, user.getId(), DUPLICATE_USERNAME_ERROR);
+          } else if (isOwnedByOtherUser(barcodeOwners, user.getBarcode(), user.getId())
+              || barcode != null && batchBarcodes.contains(barcode)) {
+            failBatchUser(candidates, resultsById, user.getId(), DUPLICATE_BARCODE_ERROR);
+          } else {
+            if (username != null) {
+              batchUsernames.add(username);
+            }
+            if (barcode != null) {
+              batchBarcodes.add(barcode);
+            }
+          }
+        }
+        return succeededFuture();
+      });
+  }
+
+  private static boolean isOwnedByOtherUser(Map<String, Set<String>> owners, String value, String userId) {
+    if (value == null) {
+      return false;
+    }
+    return owners.getOrDefault(value, Set.of()).stream().anyMatch(ownerId -> !ownerId.equals(userId));
+  }
+
+  /**
+   * Writes all remaining candidates with one multi-row upsert in a single transaction, together with
+   * their outbox logs. The consortium check runs once for the whole batch.
+   */
+  private Future<Void> saveUserBatch(Map<String, User> candidates, Map<String, UserBatchResult> resultsById,
+      Map<String, String> okapiHeaders, PostgresClient postgresClient, Context vertxContext) {
+
+    if (candidates.isEmpty()) {
+      return succeededFuture();
+    }
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+
+    return postgresClient.withTrans(conn -> usersService.getUsersByIdsForUpdate(conn, tenantId, candidates.keySet())
+      .compose(usersFromStorage -> userTenantService.getConsortiaCentralTenantId(okapiHeaders)
+        .compose(centralTenantId -> validateBatchAcrossTenants(centralTenantId, candidates, resultsById,
+            usersFromStorage, okapiHeaders, vertxContext)
+          .compose(v -> upsertBatchUsers(conn, candidates, okapiHeaders))
+          .compose(v -> saveBatchOutboxLogs(conn, centralTenantId != null, candidates, usersFromStorage, okapiHeaders)))
+        .map(v -> usersFromStorage)))
+      .onSuccess(usersFromStorage -> candidates.keySet().forEach(userId -> resultsById.get(userId)
+        .setStatus(usersFromStorage.containsKey(userId) ? UserBatchResult.Status.UPDATED : UserBatchResult.Status.CREATED)))
+      .mapEmpty();
+  }
+
+  private Future<Void> validateBatchAcrossTenants(String centralTenantId, Map<String, User> candidates,
+      Map<String, UserBatchResult> resultsById, Map<String, User> usersFromStorage,
+      Map<String, String> okapiHeaders, Context vertxContext) {
+
+    if (centralTenantId == null) {
+      return succeededFuture();
+    }
+    Future<Void> future = succeededFuture();
+    for (User user : new ArrayList<>(candidates.values())) {
+      User userFromStorage = usersFromStorage.get(user.getId());
+      future = future.compose(v -> (userFromStorage == null
+          ? userTenantService.validateUserAcrossTenants(user, okapiHeaders, vertxContext)
+          : userTenantService.validateUserAcrossTenants(user, userFromStorage, okapiHeaders, vertxContext))
+        .recover(e -> {
+          // other failures, e.g. of the SQL, abort the transaction and fail the whole batch
+          if (!isUserAcrossTenantsError(e.getMessage())) {
+            return failedFuture(e);
+          }
+          failBatchUser(candidates, resultsById, user.getId(), e.getMessage());
+          return succeededFuture();
+        }));
+    }
+    return future;
+  }
+
+  private Future<Void> upsertBatchUsers(Conn conn, Map<String, User> candidates, Map<String, String> okapiHeaders) {
+    if (candidates.isEmpty()) {
+      return succeededFuture();
+    }
+    Date now = new Date();
+    List<User> users = new ArrayList<>(candidates.values());
+    try {
+      for (User user : users) {
+        user.setCreatedDate(now);
+        user.setUpdatedDate(now);
+        MetadataUtil.populateMetadata(user, okapiHeaders);
+      }
+    } catch (ReflectiveOperationException e) {
+      return failedFuture(e);
+    }
+    return usersService.upsertUsers(conn, users).mapEmpty();
+  }
+
+  private Future<Void> saveBatchOutboxLogs(Conn conn, boolean isConsortiaTenant, Map<String, User> candidates,
+      Map<String, User> usersFromStorage, Map<String, String> okapiHeaders) {
+
+    if (!isConsortiaTenant) {
+      return succeededFuture();
+    }
+    return userOutboxService.saveUserOutboxLogsForCreateOrUpdateUsers(conn, candidates.values(),
+      usersFromStorage, okapiHeaders).mapEmpty();
+  }
+
+  private static void failBatchUser(Map<String, User> candidates, Map<String, UserBatchResult> resultsById,
+      String userId, String errorMessage) {
+
+    logger.warn("Batch user with id {} has been rejected: {}", userId, errorMessage);
+    candidates.remove(userId);
+    resultsById.get(userId)
+      .withStatus(UserBatchResult.Status.FAILED)
+      .withErrorMessage(errorMessage);
+  }
+
+  private static List<String> getAddressTypeIds(User user) {
+    if (user.getPersonal() == null || user.getPersonal().getAddresses() == null) {
+      return emptyList();
+    }
+    return user.getPersonal().getAddresses().stream()
+      .map(Address::getAddressTypeId)
+      .toList();
+  }
+
   @Override
   public void postUsersExpireTimer(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
       Context vertxContext) {
@@ -589,7 +1368,7 @@ public class UsersAPI implements Users {
 
   @Override
   public void postUsersOutboxProcess(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
-    userOutboxService.processOutboxEventLogs(vertxContext.owner(), okapiHeaders)
+    userOutboxService.drainOutboxEventLogs(vertxContext.owner(), okapiHeaders, UserOutboxService.DRAIN_BUDGET_MILLIS)
       .onSuccess(res -> asyncResultHandler.handle(Future.succeededFuture(Response.status(Response.Status.OK).build())))
       .onFailure(cause -> {
         logger.warn("Processing of outbox events table has been failed", cause);
@@ -878,8 +1657,12 @@ public class UsersAPI implements Users {
     if (Objects.nonNull(entity.getMaxFileSize()) && entity.getMaxFileSize() > 10) {
       asyncResultHandler.handle(succeededFuture(Users.PutUsersConfigurationsEntryByConfigIdResponse.respond500WithTextPlain("Max file size should not exceed more than 10 megabytes")));
     } else {
+      String tenantId = TenantTool.tenantId(okapiHeaders);
       PgUtil.put(TABLE_NAME_CONFIG, entity, configId, okapiHeaders, vertxContext, PutUsersConfigurationsEntryByConfigIdResponse.class,
-        asyncResultHandler);
+        result -> {
+          cacheInvalidationBus.invalidate(tenantId, EntityType.CONFIG, configId);
+          asyncResultHandler.handle(result);
+        });
     }
   }
 
@@ -889,13 +1672,28 @@ public class UsersAPI implements Users {
     entity.setCreatedDate(now);
     entity.setUpdatedDate(now);
 
+    String ifMatch = okapiHeaders.get(IF_MATCH_HEADER);
+    if (ifMatch != null) {
+      Integer version = parseVersion(ifMatch);
+      if (version == null) {
+        asyncResultHandler.handle(succeededFuture(
+          PutUsersByUserIdResponse.respond400WithTextPlain("If-Match must be the _version of the user: " + ifMatch)));
+        return;
+      }
+      updateUserIfVersionMatches(entity.withVersion(version), okapiHeaders, pgClient, asyncResultHandler, vertxContext);
+      return;
+    }
+
     pgClient.withTrans(conn -> usersService.getUserByIdForUpdate(conn, entity.getId())
       .compose(userFromStorage -> {
         if (userFromStorage == null) {
           return succeededFuture(PutUsersByUserIdResponse.respond404WithTextPlain(entity.getId()));
         }
+        if (UserDiff.isUnchanged(entity, userFromStorage)) {
+          return succeededFuture(unchangedUserResponse());
+        }
 
-        return userTenantService.validateUserAcrossTenants(entity, userFromStorage, okapiHeaders, conn, vertxContext)
+        return userTenantService.validateUserAcrossTenants(entity, userFromStorage, okapiHeaders, vertxContext)
           .compose(aVoid -> usersService.updateUser(conn, entity)
             .compose(user -> userOutboxService.saveUserOutboxLogForUpdateUser(conn, user, userFromStorage, okapiHeaders))
             .map(isUserOutboxLogSaved -> PutUsersByUserIdResponse.respond204())
@@ -906,11 +1704,77 @@ public class UsersAPI implements Users {
         handleUpdateUserFailures(entity, asyncResultHandler, reply);
         return;
       }
-      userOutboxService.processOutboxEventLogs(vertxContext.owner(), okapiHeaders);
       asyncResultHandler.handle(reply);
     });
   }
 
+  /**
+   * Compare and set update, the stored user is read without a lock and the cross-tenant checks run
+   * before the row is locked by the update. The version check of the update guarantees that the
+   * read user is still the stored one, so it can be used for the outbox diff.
+   */
+  private void updateUserIfVersionMatches(User entity, Map<String, String> okapiHeaders, PostgresClient pgClient,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    String tenantId = TenantTool.tenantId(okapiHeaders);
+    pgClient.withTrans(conn -> usersService.getUserById(conn, entity.getId())
+      .compose(userFromStorage -> {
+        if (userFromStorage == null) {
+          return succeededFuture(PutUsersByUserIdResponse.respond404WithTextPlain(entity.getId()));
+        }
+        // a user written before the users table got its version trigger has no _version yet
+        int storedVersion = ObjectUtils.defaultIfNull(userFromStorage.getVersion(), 0);
+        if (entity.getVersion() != storedVersion) {
+          return succeededFuture(versionConflict(entity, storedVersion));
+        }
+        if (UserDiff.isUnchanged(entity, userFromStorage)) {
+          return succeededFuture(unchangedUserResponse());
+        }
+        return userTenantService.validateUserAcrossTenants(entity, userFromStorage, okapiHeaders, vertxContext)
+          .compose(aVoid -> usersService.updateUserIfVersionMatches(conn, tenantId, entity))
+          .compose(updated -> {
+            if (Boolean.FALSE.equals(updated)) {
+              return succeededFuture(versionConflict(entity, "newer"));
+            }
+            return userOutboxService.saveUserOutboxLogForUpdateUser(conn, entity, userFromStorage, okapiHeaders)
+              .map(isUserOutboxLogSaved -> PutUsersByUserIdResponse.respond204())
+              .map(Response.class::cast);
+          });
+      })
+    ).onComplete(reply -> {
+      if (reply.cause() != null) {
+        handleUpdateUserFailures(entity, asyncResultHandler, reply);
+        return;
+      }
+      asyncResultHandler.handle(reply);
+    });
+  }
+
+  /**
+   * 204 for an update that doesn't change the user, nothing has been written.
+   */
+  private static Response unchangedUserResponse() {
+    return Response.noContent().header(X_UNCHANGED_HEADER, "true").build();
+  }
+
+  private static Response versionConflict(User entity, Object storedVersion) {
+    return PutUsersByUserIdResponse.respond409WithTextPlain(
+      String.format(VERSION_CONFLICT_ERROR, entity.getId(), storedVersion, entity.getVersion()));
+  }
+
+  /**
+   * @return the version in an If-Match header like 3, "3" or W/"3", null if it isn't a version
+   */
+  static Integer parseVersion(String ifMatch) {
+    String version = StringUtils.removeStart(ifMatch.trim(), "W/");
+    version = StringUtils.strip(version, "\"");
+    try {
+      return Integer.valueOf(version);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
   private void handleUpdateUserFailures(User user, Handler<AsyncResult<Response>> asyncResultHandler, AsyncResult<Response> reply) {
     String errorMessage = reply.cause().getMessage();
     if (isDuplicateUsernameError(errorMessage)) {
@@ -982,8 +1846,8 @@ public class UsersAPI implements Users {
       return succeededFuture(true);
     }
 
-    return postgresClient.getById(UserGroupAPI.GROUP_TABLE, patronGroupId)
-      .map(Objects::nonNull);
+    return ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient)
+      .map(patronGroupIds -> patronGroupIds.contains(patronGroupId));
   }
 
   /**
@@ -1022,38 +1886,19 @@ public class UsersAPI implements Users {
   }
 
   Future<Boolean> checkAddressTypeValid(String addressTypeId, PostgresClient postgresClient) {
-    final var criterion = new Criterion(
-      new Criteria().addField(AddressTypeAPI.ID_FIELD_NAME)
-        .setJSONB(false).setOperation("=").setVal(addressTypeId));
-
-    try {
-      return postgresClient.get(AddressTypeAPI.ADDRESS_TYPE_TABLE, AddressType.class, criterion, true)
-        .map(addressTypes -> !addressTypes.getResults().isEmpty());
-    }
-    catch (Exception e) {
-      return failedFuture(e);
-    }
+    return ReferenceDataCache.getInstance().getAddressTypeIds(postgresClient)
+      .map(addressTypeIds -> addressTypeIds.contains(addressTypeId));
   }
 
   Future<Boolean> checkAllAddressTypesValid(User user, PostgresClient postgresClient) {
-    List<Future<Boolean>> futureList = new ArrayList<>();
-
     if (user.getPersonal() == null || user.getPersonal().getAddresses() == null) {
       return succeededFuture(true);
     }
 
-    final var addressTypes = user.getPersonal().getAddresses()
-      .stream()
-      .map(Address::getAddressTypeId)
-      .toList();
-
-    addressTypes.forEach(addressTypeId -> futureList.add(
-      checkAddressTypeValid(addressTypeId, postgresClient)));
+    final var addressTypes = getAddressTypeIds(user);
 
-    return GenericCompositeFuture.all(futureList)
-      .map(res -> futureList.stream()
-        .map(Future::result)
-        .allMatch(Predicate.isEqual(true)));
+    return ReferenceDataCache.getInstance().getAddressTypeIds(postgresClient)
+      .map(addressTypeIds -> addressTypeIds.containsAll(addressTypes));
   }
 
   private static Map<String, Object> getCustomFields(User entity) {
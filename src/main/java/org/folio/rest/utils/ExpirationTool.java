@@ -18,6 +18,8 @@ import org.folio.rest.jaxrs.model.User;
 import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.persist.cql.CQLWrapper;
 import org.folio.rest.persist.interfaces.Results;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
 
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -37,8 +39,7 @@ public final class ExpirationTool {
 
   public Future<Integer> doExpirationForTenant(Vertx vertx, String tenant) {
     try {
-      String nowDateString = ZonedDateTime.now().format(ISO_INSTANT);
-      String query = String.format("active == true AND expirationDate < %s", nowDateString);
+      String query = expirationQuery(ZonedDateTime.now());
       CQL2PgJSON cql2pgJson = new CQL2PgJSON(List.of(TABLE_NAME_USERS+".jsonb"));
       CQLWrapper cqlWrapper = new CQLWrapper(cql2pgJson, query);
       String[] fieldList = {"*"};
@@ -61,6 +62,13 @@ public final class ExpirationTool {
     }
   }
 
+  /**
+   * @return CQL query of the active users that have expired before the given time
+   */
+  public static String expirationQuery(ZonedDateTime now) {
+    return String.format("active == true AND expirationDate < %s", now.format(ISO_INSTANT));
+  }
+
   private Future<Integer> disableUsers(Vertx vertx, String tenant,
     String query, Results<User> results) {
 
@@ -90,6 +98,7 @@ public final class ExpirationTool {
       PostgresClient pgClient = postgresClientFactory.apply(vertx, tenant);
 
       return pgClient.update(TABLE_NAME_USERS, user, user.getId())
+        .onComplete(x -> CacheInvalidationBus.getInstance().invalidate(tenant, EntityType.USER, user.getId()))
         .onFailure(cause -> logger.error(String.format(
           "Error updating user %s for tenant %s: %s", user.getId(), tenant,
           cause.getMessage()), cause))
@@ -8,6 +8,7 @@ public class OkapiConnectionParams {
   public static final String OKAPI_URL_HEADER = "x-okapi-url";
   public static final String OKAPI_TENANT_HEADER = "x-okapi-tenant";
   public static final String OKAPI_TOKEN_HEADER = "x-okapi-token";
+  public static final String OKAPI_USER_ID_HEADER = "x-okapi-user-id";
   private String okapiUrl;
   private String tenantId;
   private String token;
@@ -0,0 +1,279 @@
+package org.folio.service;
+
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.cql2pgjson.exception.FieldException;
+import org.folio.domain.TotalRecords;
+import org.folio.rest.persist.Criteria.Limit;
+import org.folio.rest.persist.Criteria.Offset;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.persist.cql.CQLWrapper;
+import org.folio.service.cache.CqlTranslationCache;
+
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Reads pages of a collection with a caller chosen way of calculating totalRecords, unlike
+ * PgUtil.get which always counts.
+ */
+public class CollectionService {
+
+  private static final Logger logger = LogManager.getLogger(CollectionService.class);
+
+  public static final String ALL_RECORDS_QUERY = "cql.allRecords=1";
+  private static final String COUNT_SQL = "SELECT count(*) FROM (SELECT 1 FROM %s.%s %s) AS records";
+  private static final String EXPLAIN_SQL = "EXPLAIN (FORMAT JSON) SELECT 1 FROM %s.%s %s";
+
+  private static final String COUNT_ESTIMATE_SQL = "SELECT %s.count_estimate('%s')";
+  private static final String STREAM_SQL = "SELECT jsonb::text FROM %s.%s %s";
+  private static final String PROJECTION_SQL = "SELECT id, jsonb_strip_nulls(%s)::text FROM %s.%s %s";
+  private static final Pattern FIELD_PATTERN = Pattern.compile("^\\w+(\\.\\w+)*$");
+  private static final int MAX_FIELDS = 50;
+
+  public record Page<T>(List<T> records, Integer totalRecords) {
+  }
+
+  /**
+   * @param records the projected records as JSON text
+   * @param lastId id of the last record, null if the page is empty
+   */
+  public record ProjectedPage(List<String> records, String lastId, Integer totalRecords) {
+  }
+
+  /**
+   * Reads a page of a table that has a jsonb column.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tableName the table or view
+   * @param clazz class of the records
+   * @param query CQL query, all records if blank
+   * @param offset offset of the page
+   * @param limit size of the page
+   * @param totalRecords how to calculate totalRecords
+   * @return future with the page
+   */
+  public <T> Future<Page<T>> getPage(PostgresClient pgClient, String tableName, Class<T> clazz,
+    String query, int offset, int limit, TotalRecords totalRecords) {
+
+    try {
+      var cql2pgJson = CqlTranslationCache.getInstance().getTranslator(tableName + ".jsonb");
+      var cql = StringUtils.defaultIfBlank(query, ALL_RECORDS_QUERY);
+      var pageCql = new CQLWrapper(cql2pgJson, cql).setLimit(new Limit(limit)).setOffset(new Offset(offset));
+      var countCql = new CQLWrapper(cql2pgJson, cql);
+      return getPage(pgClient, tableName, clazz, pageCql, countCql, totalRecords);
+    } catch (FieldException e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Reads a page, the records and the total are read concurrently.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tableName the table or view
+   * @param clazz class of the records
+   * @param pageCql query of the page, with limit and offset
+   * @param countCql query to count, the same filter without limit and offset
+   * @param totalRecords how to calculate totalRecords
+   * @return future with the page, its totalRecords is null for {@link TotalRecords#NONE}
+   */
+  public <T> Future<Page<T>> getPage(PostgresClient pgClient, String tableName, Class<T> clazz,
+    CQLWrapper pageCql, CQLWrapper countCql, TotalRecords totalRecords) {
+
+    Future<Integer> total = count(pgClient, tableName, countCql, totalRecords);
+    return pgClient.get(tableName, clazz, pageCql, false)
+      .compose(results -> total.map(count -> new Page<>(results.getResults(), count)));
+  }
+
+  /**
+   * Reads a page of projected records, the database builds the JSON of only the requested fields and it is
+   * passed through as text without being mapped to a POJO.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tableName the table or view, it must have id and jsonb columns
+   * @param projection SQL expression built by {@link #buildJsonbProjection}
+   * @param pageCql query of the page, with limit and offset
+   * @param countCql query to count, the same filter without limit and offset
+   * @param totalRecords how to calculate totalRecords
+   * @return future with the page
+   */
+  public Future<ProjectedPage> getProjectedPage(PostgresClient pgClient, String tableName, String projection,
+    CQLWrapper pageCql, CQLWrapper countCql, TotalRecords totalRecords) {
+
+    try {
+      String schema = convertToPsqlStandard(pgClient.getTenantId());
+      Future<Integer> total = count(pgClient, tableName, countCql, totalRecords);
+      return pgClient.execute(String.format(PROJECTION_SQL, projection, schema, tableName, pageCql))
+        .compose(rows -> {
+          List<String> records = new ArrayList<>(rows.size());
+          String lastId = null;
+          for (Row row : rows) {
+            lastId = row.getUUID(0).toString();
+            records.add(row.getString(1));
+          }
+          String finalLastId = lastId;
+          return total.map(count -> new ProjectedPage(records, finalLastId, count));
+        });
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Streams a page of records to the response, the stored jsonb is written as it is read without being
+   * mapped to a POJO and back. The count runs concurrently and is written after the records.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tableName the table or view, it must have a jsonb column
+   * @param collectionName name of the records array in the response
+   * @param pageCql query of the page, with limit and offset
+   * @param countCql query to count, the same filter without limit and offset
+   * @param totalRecords how to calculate totalRecords, null for the count_estimate of RMB that is
+   *   exact for small results like PgUtil.streamGet
+   * @param response the response to write to
+   * @return future that fails if nothing has been written yet so the caller can respond with an error
+   */
+  public Future<Void> streamPage(PostgresClient pgClient, String tableName, String collectionName,
+    CQLWrapper pageCql, CQLWrapper countCql, TotalRecords totalRecords, HttpServerResponse response) {
+
+    try {
+      String schema = convertToPsqlStandard(pgClient.getTenantId());
+      String sql = String.format(STREAM_SQL, schema, tableName, pageCql);
+      Future<Integer> total = totalRecords == null
+        ? countEstimate(pgClient, schema, tableName, countCql)
+        : count(pgClient, tableName, countCql, totalRecords);
+      var writer = new CollectionStreamWriter(response, collectionName);
+
+      return pgClient.withTrans(conn -> conn.selectStream(sql, Tuple.tuple(), rowStream ->
+          rowStream.handler(row -> {
+            writer.writeRecord(row.getString(0));
+            if (writer.writeQueueFull()) {
+              rowStream.pause();
+              writer.drainHandler(rowStream::resume);
+            }
+          })))
+        .compose(x -> total)
+        .compose(writer::end)
+        .recover(e -> {
+          if (!writer.isStarted()) {
+            return Future.failedFuture(e);
+          }
+          logger.error("streamPage:: failed after the response has been started", e);
+          return writer.endWithError(e);
+        });
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Builds a jsonb_build_object expression that copies the given fields of the jsonb column.
+   * Nested fields use dots, e.g. personal.lastName; when both a field and a field nested in it
+   * are requested the whole field is copied.
+   *
+   * @param fields the field paths
+   * @return the SQL expression
+   * @throws IllegalArgumentException if a field is not a valid path or there are too many fields
+   */
+  public static String buildJsonbProjection(Collection<String> fields) {
+    if (fields.isEmpty() || fields.size() > MAX_FIELDS) {
+      throw new IllegalArgumentException("Between 1 and " + MAX_FIELDS + " fields are allowed");
+    }
+    Map<String, Object> tree = new LinkedHashMap<>();
+    for (String field : fields) {
+      if (!FIELD_PATTERN.matcher(field).matches()) {
+        throw new IllegalArgumentException("Invalid field: " + field);
+      }
+      addPath(tree, field.split("\\."), 0);
+    }
+    return toJsonbBuildObject(tree, "jsonb");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void addPath(Map<String, Object> node, String[] path, int index) {
+    String key = path[index];
+    if (index == path.length - 1) {
+      // the whole field, it replaces fields nested in it
+      node.put(key, Boolean.TRUE);
+      return;
+    }
+    Object child = node.get(key);
+    if (Boolean.TRUE.equals(child)) {
+      return;
+    }
+    if (child == null) {
+      child = new LinkedHashMap<String, Object>();
+      node.put(key, child);
+    }
+    addPath((Map<String, Object>) child, path, index + 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String toJsonbBuildObject(Map<String, Object> node, String source) {
+    return node.entrySet().stream()
+      .map(entry -> {
+        String value = source + "->'" + entry.getKey() + "'";
+        if (entry.getValue() instanceof Map<?, ?> child) {
+          value = toJsonbBuildObject((Map<String, Object>) child, value);
+        }
+        return "'" + entry.getKey() + "', " + value;
+      })
+      .collect(Collectors.joining(", ", "jsonb_build_object(", ")"));
+  }
+
+  private Future<Integer> count(PostgresClient pgClient, String tableName, CQLWrapper countCql,
+    TotalRecords totalRecords) {
+
+    try {
+      String schema = convertToPsqlStandard(pgClient.getTenantId());
+      return switch (totalRecords) {
+        case NONE -> Future.succeededFuture(null);
+        case EXACT -> pgClient.execute(String.format(COUNT_SQL, schema, tableName, countCql))
+          .map(rows -> rows.iterator().next().getLong(0).intValue());
+        case ESTIMATED -> pgClient.execute(String.format(EXPLAIN_SQL, schema, tableName, countCql))
+          .map(rows -> estimatedRows(rows.iterator().next()));
+      };
+    } catch (Exception e) {
+      // CQLWrapper parses the query when it is rendered
+      return Future.failedFuture(e);
+    }
+  }
+
+  private Future<Integer> countEstimate(PostgresClient pgClient, String schema, String tableName,
+    CQLWrapper countCql) {
+
+    try {
+      String countSql = String.format("SELECT jsonb FROM %s.%s %s", schema, tableName, countCql);
+      return pgClient.execute(String.format(COUNT_ESTIMATE_SQL, schema, countSql.replace("'", "''")))
+        .map(rows -> rows.iterator().next().getLong(0).intValue());
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Takes the row estimate of the planner from the top node of an EXPLAIN (FORMAT JSON) plan.
+   */
+  private static Integer estimatedRows(Row row) {
+    Object value = row.getValue(0);
+    JsonArray plan = value instanceof JsonArray jsonArray ? jsonArray : new JsonArray(value.toString());
+    long rows = plan.getJsonObject(0).getJsonObject("Plan").getLong("Plan Rows");
+    logger.debug("estimatedRows:: planner estimate {}", rows);
+    return (int) Math.min(rows, Integer.MAX_VALUE);
+  }
+}
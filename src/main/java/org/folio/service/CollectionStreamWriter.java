@@ -0,0 +1,75 @@
+package org.folio.service;
+
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Writes a collection envelope to a chunked HTTP response, the records are written as they are
+ * read and must already be JSON text. The headers are only sent with the first write, until then a
+ * failure can still be reported with an error status.
+ */
+class CollectionStreamWriter {
+
+  private final HttpServerResponse response;
+  private final String collectionName;
+  private boolean started;
+  private boolean empty = true;
+
+  CollectionStreamWriter(HttpServerResponse response, String collectionName) {
+    this.response = response;
+    this.collectionName = collectionName;
+  }
+
+  boolean isStarted() {
+    return started;
+  }
+
+  boolean writeQueueFull() {
+    return response.writeQueueFull();
+  }
+
+  void drainHandler(Runnable drained) {
+    response.drainHandler(v -> drained.run());
+  }
+
+  void writeRecord(String json) {
+    start();
+    if (!empty) {
+      response.write(",");
+    }
+    empty = false;
+    response.write(json);
+  }
+
+  /**
+   * Closes the records array and writes totalRecords, it is omitted when null like in the
+   * responses that are not streamed.
+   */
+  Future<Void> end(Integer totalRecords) {
+    start();
+    String total = totalRecords == null ? "" : "\"totalRecords\":" + totalRecords + ",";
+    return response.end("]," + total + "\"resultInfo\":{" + total + "\"facets\":[],\"diagnostics\":[]}}");
+  }
+
+  /**
+   * Ends a response whose status has already been sent, the error is added to the envelope the
+   * same way PgUtil.streamGet reports it.
+   */
+  Future<Void> endWithError(Throwable e) {
+    var error = new JsonObject().put("message", String.valueOf(e.getMessage()));
+    return response.end("],\"errors\":[" + error.encode() + "]}");
+  }
+
+  private void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    response.setStatusCode(200);
+    response.setChunked(true);
+    response.putHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+    response.write("{\"" + collectionName + "\":[");
+  }
+}
@@ -0,0 +1,425 @@
+package org.folio.service;
+
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+import static org.folio.support.UsersApiConstants.ID;
+import static org.folio.support.UsersApiConstants.TABLE_NAME_USERS;
+import static org.folio.support.UsersApiConstants.TABLE_NAME_USER_JOB;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.cql2pgjson.CQL2PgJSON;
+import org.folio.cql2pgjson.exception.CQL2PgJSONException;
+import org.folio.event.service.UserOutboxService;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserJob;
+import org.folio.rest.jaxrs.model.UserPatch;
+import org.folio.rest.persist.Conn;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.persist.Criteria.Limit;
+import org.folio.rest.persist.cql.CQLWrapper;
+import org.folio.rest.tools.utils.MetadataUtil;
+import org.folio.rest.tools.utils.TenantTool;
+import org.folio.rest.utils.ExpirationTool;
+import org.folio.rest.utils.OkapiConnectionParams;
+import org.folio.service.cache.ReferenceDataCache;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
+
+import org.z3950.zing.cql.CQLParseException;
+import org.z3950.zing.cql.CQLParser;
+import org.z3950.zing.cql.CQLSortNode;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Runs bulk operations on users asynchronously: delete, update with a patch, expire. A job works
+ * through the users selected by its query in chunks sorted by id, each chunk is a transaction of its
+ * own that also saves the progress of the job, so a job that has stopped, e.g. because its module
+ * instance went down, continues after the last processed id when it is resumed.
+ *
+ * <p>Each run of a job holds a lease, the id of the run saved with the job. Resuming a job gives
+ * it a new lease, and every chunk locks the job and checks the lease first, so a run that is only
+ * slow stops once its job has been resumed elsewhere instead of processing it twice.
+ */
+public class UserJobService {
+
+  private static final Logger logger = LogManager.getLogger(UserJobService.class);
+
+  private static final int CHUNK_SIZE = 1000;
+  public static final long STALE_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  private static final String LOCK_LEASED_JOB_SQL = "SELECT id FROM %s.%s WHERE id = $1 AND jsonb->>'leaseId' = $2"
+    + " FOR UPDATE";
+  private static final String SELECT_UNFINISHED_JOBS_SQL = "SELECT jsonb FROM %s.%s"
+    + " WHERE jsonb->>'status' IN ('pending', 'running')";
+  private static final String DELETE_CHUNK_SQL = "DELETE FROM %1$s.%2$s WHERE id IN (SELECT id FROM %1$s.%2$s %3$s)"
+    + " RETURNING id";
+  private static final String UPDATE_CHUNK_SQL = "UPDATE %1$s.%2$s u"
+    + " SET jsonb = u.jsonb || $1::jsonb || jsonb_build_object('metadata', coalesce(u.jsonb->'metadata', '{}'::jsonb) || $2::jsonb)"
+    + " FROM (SELECT id, jsonb FROM %1$s.%2$s %3$s FOR UPDATE) old"
+    + " WHERE u.id = old.id RETURNING u.id, old.jsonb AS old_jsonb, u.jsonb AS new_jsonb";
+  private static final String COUNT_DEPARTMENTS_SQL = "SELECT count(*) FROM %s.departments WHERE id = ANY ($1)";
+  private static final String EXPIRE_CHUNK_SQL = "UPDATE %1$s.%2$s SET jsonb = jsonb_set(jsonb, '{active}', 'false')"
+    + " WHERE id IN (SELECT id FROM %1$s.%2$s %3$s) RETURNING id";
+
+  private final UserOutboxService userOutboxService;
+
+  public UserJobService() {
+    this(new UserOutboxService());
+  }
+
+  public UserJobService(UserOutboxService userOutboxService) {
+    this.userOutboxService = userOutboxService;
+  }
+
+  /**
+   * Saves the job as pending and starts it, the returned future doesn't wait for the job to run.
+   *
+   * @param job the job to run
+   * @param okapiHeaders the okapi headers, they are kept for the whole run of the job
+   * @param vertx the vertx instance
+   * @return future with the saved job, failed with IllegalArgumentException if the job is invalid
+   */
+  public Future<UserJob> submitJob(UserJob job, Map<String, String> okapiHeaders, Vertx vertx) {
+    try {
+      if (job.getType() == UserJob.Type.EXPIRE) {
+        job.setQuery(ExpirationTool.expirationQuery(ZonedDateTime.now()));
+      }
+      validateQuery(job.getQuery());
+      validatePatch(job);
+      MetadataUtil.populateMetadata(job, okapiHeaders);
+      job.withId(StringUtils.defaultIfBlank(job.getId(), UUID.randomUUID().toString()))
+        .withStatus(UserJob.Status.PENDING)
+        .withProcessedRecords(0)
+        .withProgressDate(new Date())
+        .withLeaseId(UUID.randomUUID().toString());
+
+      String tenantId = TenantTool.tenantId(okapiHeaders);
+      PostgresClient pgClient = PostgresClient.getInstance(vertx, tenantId);
+      return validatePatchReferences(pgClient, job.getPatch())
+        .compose(v -> pgClient.save(TABLE_NAME_USER_JOB, job.getId(), job))
+        .map(id -> {
+          logger.info("submitJob:: {} job {} has been submitted for tenant {}", job.getType(), id, tenantId);
+          runJob(job, okapiHeaders, vertx);
+          return job;
+        });
+    } catch (IllegalArgumentException e) {
+      return Future.failedFuture(e);
+    } catch (Exception e) {
+      logger.error("submitJob:: failed", e);
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Reads a job, a pending or running job that hasn't made progress for a while is resumed by this call.
+   *
+   * @return future with the job, null if there is no job with this id
+   */
+  public Future<UserJob> getJob(String jobId, Map<String, String> okapiHeaders, Vertx vertx) {
+    PostgresClient pgClient = PostgresClient.getInstance(vertx, TenantTool.tenantId(okapiHeaders));
+    return pgClient.getById(TABLE_NAME_USER_JOB, jobId, UserJob.class)
+      .compose(job -> {
+        if (job == null || !isStale(job)) {
+          return Future.succeededFuture(job);
+        }
+        return resumeStaleJob(pgClient, jobId, okapiHeaders, vertx)
+          .map(claimedJob -> claimedJob == null ? job : claimedJob);
+      });
+  }
+
+  /**
+   * Resumes the stale jobs of the tenant, so that a job whose module instance went down continues
+   * without a client polling it. A resumed job runs with the tenant and the user that submitted it.
+   *
+   * @param tenantId the tenant id
+   * @param vertx the vertx instance
+   * @return future with the number of resumed jobs
+   */
+  public Future<Integer> resumeStaleJobs(String tenantId, Vertx vertx) {
+    PostgresClient pgClient = PostgresClient.getInstance(vertx, tenantId);
+    String sql = String.format(SELECT_UNFINISHED_JOBS_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USER_JOB);
+    return pgClient.execute(sql)
+      .compose(rows -> {
+        Future<Integer> resumed = Future.succeededFuture(0);
+        for (Row row : rows) {
+          UserJob job = row.getJsonObject("jsonb").mapTo(UserJob.class);
+          if (isStale(job)) {
+            resumed = resumed.compose(count -> resumeStaleJob(pgClient, job.getId(), jobOkapiHeaders(tenantId, job), vertx)
+              .map(claimedJob -> claimedJob == null ? count : count + 1));
+          }
+        }
+        return resumed;
+      });
+  }
+
+  /**
+   * @return future with the resumed job, null if another caller has resumed it in the meantime
+   */
+  private Future<UserJob> resumeStaleJob(PostgresClient pgClient, String jobId, Map<String, String> okapiHeaders,
+      Vertx vertx) {
+
+    return claimStaleJob(pgClient, jobId)
+      .onSuccess(claimedJob -> {
+        if (claimedJob != null) {
+          logger.info("resumeStaleJob:: resuming stale job {} after {} records", jobId, claimedJob.getProcessedRecords());
+          runJob(claimedJob, okapiHeaders, vertx);
+        }
+      });
+  }
+
+  private static Map<String, String> jobOkapiHeaders(String tenantId, UserJob job) {
+    Map<String, String> okapiHeaders = new HashMap<>();
+    okapiHeaders.put(OkapiConnectionParams.OKAPI_TENANT_HEADER, tenantId);
+    if (job.getMetadata() != null && job.getMetadata().getCreatedByUserId() != null) {
+      okapiHeaders.put(OkapiConnectionParams.OKAPI_USER_ID_HEADER, job.getMetadata().getCreatedByUserId());
+    }
+    return okapiHeaders;
+  }
+
+  private void runJob(UserJob job, Map<String, String> okapiHeaders, Vertx vertx) {
+    PostgresClient pgClient = PostgresClient.getInstance(vertx, TenantTool.tenantId(okapiHeaders));
+    job.setStatus(UserJob.Status.RUNNING);
+    if (job.getStartedDate() == null) {
+      job.setStartedDate(new Date());
+    }
+    runChunks(pgClient, job, okapiHeaders, vertx)
+      .onSuccess(v -> logger.info("runJob:: job {} has completed, {} records", job.getId(), job.getProcessedRecords()))
+      .onFailure(e -> {
+        if (e instanceof LeaseLostException) {
+          logger.info("runJob:: job {} has been resumed by another run, stopping after {} records",
+            job.getId(), job.getProcessedRecords());
+          return;
+        }
+        logger.error("runJob:: job {} has failed after {} records", job.getId(), job.getProcessedRecords(), e);
+        job.withStatus(UserJob.Status.FAILED)
+          .withErrorMessage(e.getMessage())
+          .withCompletedDate(new Date());
+        pgClient.withTrans(conn -> holdLease(conn, pgClient.getTenantId(), job)
+            .compose(v -> conn.update(TABLE_NAME_USER_JOB, job, job.getId())))
+          .onFailure(e2 -> logger.error("runJob:: cannot save failed job {}", job.getId(), e2));
+      });
+  }
+
+  private Future<Void> runChunks(PostgresClient pgClient, UserJob job, Map<String, String> okapiHeaders, Vertx vertx) {
+    return pgClient.withTrans(conn -> holdLease(conn, pgClient.getTenantId(), job)
+        .compose(v -> processChunk(conn, job, okapiHeaders))
+        .compose(ids -> {
+          job.withProcessedRecords(job.getProcessedRecords() + ids.size())
+            .withProgressDate(new Date());
+          if (!ids.isEmpty()) {
+            job.setLastProcessedId(ids.get(ids.size() - 1));
+          }
+          if (ids.size() < CHUNK_SIZE) {
+            job.withStatus(UserJob.Status.COMPLETED)
+              .withCompletedDate(new Date());
+          }
+          return conn.update(TABLE_NAME_USER_JOB, job, job.getId())
+            .map(ids);
+        }))
+      .compose(ids -> {
+        if (!ids.isEmpty()) {
+          CacheInvalidationBus.getInstance().invalidate(TenantTool.tenantId(okapiHeaders), EntityType.USER, null);
+        }
+        if (job.getStatus() == UserJob.Status.COMPLETED) {
+          return Future.succeededFuture();
+        }
+        return runChunks(pgClient, job, okapiHeaders, vertx);
+      });
+  }
+
+  /**
+   * Locks the job for the transaction if the run still holds its lease.
+   *
+   * @return future failed with LeaseLostException if the job has been resumed by another run
+   */
+  private static Future<Void> holdLease(Conn conn, String tenantId, UserJob job) {
+    String sql = String.format(LOCK_LEASED_JOB_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USER_JOB);
+    return conn.execute(sql, Tuple.of(UUID.fromString(job.getId()), job.getLeaseId()))
+      .compose(rows -> rows.rowCount() == 0
+        ? Future.failedFuture(new LeaseLostException(job.getId()))
+        : Future.succeededFuture());
+  }
+
+  /**
+   * Applies the operation to the next chunk of users.
+   *
+   * @return future with the sorted ids of the processed users
+   */
+  private Future<List<String>> processChunk(Conn conn, UserJob job, Map<String, String> okapiHeaders) {
+    try {
+      String schema = convertToPsqlStandard(TenantTool.tenantId(okapiHeaders));
+      CQLWrapper cql = chunkCql(job);
+      return switch (job.getType()) {
+        case DELETE -> conn.execute(String.format(DELETE_CHUNK_SQL, schema, TABLE_NAME_USERS, cql))
+          .compose(rows -> {
+            List<String> ids = toSortedIds(rows);
+            if (ids.isEmpty()) {
+              return Future.succeededFuture(ids);
+            }
+            List<User> users = ids.stream().map(id -> new User().withId(id)).toList();
+            return userOutboxService.saveUserOutboxLogForDeleteUsers(conn, users, okapiHeaders)
+              .map(ids);
+          });
+        case UPDATE -> conn.execute(String.format(UPDATE_CHUNK_SQL, schema, TABLE_NAME_USERS, cql),
+            Tuple.of(PostgresClient.pojo2JsonObject(job.getPatch()), updateMetadata(okapiHeaders)))
+          .compose(rows -> saveUpdateOutboxLogs(conn, rows, okapiHeaders)
+            .map(toSortedIds(rows)));
+        case EXPIRE -> conn.execute(String.format(EXPIRE_CHUNK_SQL, schema, TABLE_NAME_USERS, cql))
+          .map(UserJobService::toSortedIds);
+      };
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Saves the outbox logs of updated users with the same rules as a PUT of each user.
+   */
+  private Future<Integer> saveUpdateOutboxLogs(Conn conn, RowSet<Row> rows, Map<String, String> okapiHeaders) {
+    if (rows.rowCount() == 0) {
+      return Future.succeededFuture(0);
+    }
+    List<User> users = new ArrayList<>(rows.rowCount());
+    Map<String, User> usersFromStorage = new HashMap<>();
+    for (Row row : rows) {
+      users.add(row.getJsonObject("new_jsonb").mapTo(User.class));
+      User userFromStorage = row.getJsonObject("old_jsonb").mapTo(User.class);
+      usersFromStorage.put(userFromStorage.getId(), userFromStorage);
+    }
+    return userOutboxService.saveUserOutboxLogsForCreateOrUpdateUsers(conn, users, usersFromStorage, okapiHeaders);
+  }
+
+  private static JsonObject updateMetadata(Map<String, String> okapiHeaders) {
+    var metadata = new JsonObject().put("updatedDate", Instant.now().toString());
+    String userId = okapiHeaders.get(OkapiConnectionParams.OKAPI_USER_ID_HEADER);
+    if (userId != null) {
+      metadata.put("updatedByUserId", userId);
+    }
+    return metadata;
+  }
+
+  /**
+   * The next chunk: the users matching the query after the last processed id, sorted by id.
+   */
+  private static CQLWrapper chunkCql(UserJob job) throws CQL2PgJSONException {
+    String query = job.getQuery();
+    if (job.getLastProcessedId() != null) {
+      query = "(" + query + ") and id > \"" + job.getLastProcessedId() + "\"";
+    }
+    return new CQLWrapper(new CQL2PgJSON(TABLE_NAME_USERS + ".jsonb"), query + " sortBy id")
+      .setLimit(new Limit(CHUNK_SIZE));
+  }
+
+  private static void validateQuery(String query) {
+    if (StringUtils.isBlank(query)) {
+      throw new IllegalArgumentException("A query is required");
+    }
+    try {
+      if (new CQLParser().parse(query) instanceof CQLSortNode) {
+        throw new IllegalArgumentException("The query must not contain sortBy, jobs process users sorted by id");
+      }
+      new CQL2PgJSON(TABLE_NAME_USERS + ".jsonb").toSql(query);
+    } catch (CQLParseException | IOException | CQL2PgJSONException e) {
+      throw new IllegalArgumentException("Invalid query '" + query + "': " + e.getMessage(), e);
+    }
+  }
+
+  private static void validatePatch(UserJob job) {
+    UserPatch patch = job.getPatch();
+    if (job.getType() != UserJob.Type.UPDATE) {
+      if (patch != null) {
+        throw new IllegalArgumentException("A patch is only allowed for an update job");
+      }
+      return;
+    }
+    if (patch == null || ObjectUtils.allNull(patch.getActive(), patch.getPatronGroup(),
+        patch.getExpirationDate(), patch.getDepartments())) {
+      throw new IllegalArgumentException("An update job needs a patch with at least one field");
+    }
+  }
+
+  /**
+   * Checks that the patron group and the departments of the patch exist.
+   */
+  private static Future<Void> validatePatchReferences(PostgresClient pgClient, UserPatch patch) {
+    if (patch == null) {
+      return Future.succeededFuture();
+    }
+    Future<Void> patronGroup = patch.getPatronGroup() == null
+      ? Future.succeededFuture()
+      : ReferenceDataCache.getInstance().getPatronGroupIds(pgClient)
+        .compose(ids -> ids.contains(patch.getPatronGroup())
+          ? Future.succeededFuture()
+          : Future.failedFuture(new IllegalArgumentException("Patron group not found: " + patch.getPatronGroup())));
+    if (patch.getDepartments() == null || patch.getDepartments().isEmpty()) {
+      return patronGroup;
+    }
+    UUID[] departmentIds = patch.getDepartments().stream().map(UUID::fromString).toArray(UUID[]::new);
+    String sql = String.format(COUNT_DEPARTMENTS_SQL, convertToPsqlStandard(pgClient.getTenantId()));
+    return patronGroup
+      .compose(v -> pgClient.execute(sql, Tuple.of(departmentIds)))
+      .compose(rows -> rows.iterator().next().getLong(0) == departmentIds.length
+        ? Future.succeededFuture()
+        : Future.failedFuture(new IllegalArgumentException("Departments not found: " + patch.getDepartments())));
+  }
+
+  /**
+   * Sorts like postgres sorts uuids, the canonical lower case form compares the same way.
+   */
+  private static List<String> toSortedIds(RowSet<Row> rows) {
+    List<String> ids = new ArrayList<>(rows.rowCount());
+    rows.forEach(row -> ids.add(row.getUUID(ID).toString()));
+    ids.sort(null);
+    return ids;
+  }
+
+  private static boolean isStale(UserJob job) {
+    boolean unfinished = job.getStatus() == UserJob.Status.PENDING || job.getStatus() == UserJob.Status.RUNNING;
+    return unfinished && job.getProgressDate() != null
+      && job.getProgressDate().getTime() < System.currentTimeMillis() - STALE_AFTER_MILLIS;
+  }
+
+  /**
+   * Locks the job and takes it over if it is still stale, so that only one caller resumes it.
+   *
+   * @return future with the claimed job, null if it is no longer stale
+   */
+  private static Future<UserJob> claimStaleJob(PostgresClient pgClient, String jobId) {
+    return pgClient.withTrans(conn -> conn.getByIdForUpdate(TABLE_NAME_USER_JOB, jobId, UserJob.class)
+      .compose(job -> {
+        if (job == null || !isStale(job)) {
+          return Future.succeededFuture(null);
+        }
+        job.withProgressDate(new Date())
+          .withLeaseId(UUID.randomUUID().toString());
+        return conn.update(TABLE_NAME_USER_JOB, job, jobId).map(job);
+      }));
+  }
+
+  /**
+   * The job has been resumed by another run, which holds its lease now.
+   */
+  private static final class LeaseLostException extends RuntimeException {
+    LeaseLostException(String jobId) {
+      super("Job " + jobId + " is held by another run");
+    }
+  }
+}
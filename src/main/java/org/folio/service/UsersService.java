@@ -2,20 +2,54 @@ package org.folio.service;
 
 import io.vertx.core.Future;
 import io.vertx.ext.web.handler.HttpException;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Personal;
 import org.folio.rest.jaxrs.model.User;
 import org.folio.rest.persist.Conn;
+import org.folio.rest.persist.PostgresClient;
 
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+import static org.folio.support.UsersApiConstants.ID;
+import static org.folio.support.UsersApiConstants.JSONB;
 import static org.folio.support.UsersApiConstants.TABLE_NAME_USERS;
 
 public class UsersService {
 
   private static final Logger logger = LogManager.getLogger(UsersService.class);
 
+  private static final String SELECT_USERS_BY_IDS_FOR_UPDATE_SQL = "SELECT jsonb FROM %s.%s WHERE id = ANY ($1) FOR UPDATE";
+  private static final String SELECT_USERS_BY_IDS_IN_ORDER_SQL = "SELECT u.jsonb::text"
+    + " FROM unnest($1::uuid[]) WITH ORDINALITY AS ids(id, ordinality) JOIN %s.%s u ON u.id = ids.id"
+    + " ORDER BY ids.ordinality";
+  private static final String RESOLVE_IDENTIFIER_SQL = "SELECT 1 AS priority, 'barcode' AS field, jsonb::text FROM %1$s.%2$s"
+    + " WHERE lower(f_unaccent(jsonb->>'barcode')) = lower(f_unaccent($1))"
+    + " UNION ALL SELECT 2, 'username', jsonb::text FROM %1$s.%2$s"
+    + " WHERE lower(f_unaccent(jsonb->>'username')) = lower(f_unaccent($1))"
+    + " UNION ALL SELECT 3, 'externalSystemId', jsonb::text FROM %1$s.%2$s"
+    + " WHERE lower(f_unaccent(jsonb->>'externalSystemId')) = lower(f_unaccent($1))"
+    + " ORDER BY priority LIMIT 1";
+  private static final String UPDATE_USER_IF_VERSION_MATCHES_SQL = "UPDATE %s.%s SET jsonb = $1::jsonb"
+    + " WHERE id = $2 AND coalesce(jsonb->>'_version', '0') = $3";
+  private static final String SELECT_USERNAME_AND_BARCODE_OWNERS_SQL = "SELECT u.id, keys.key AS username, NULL AS barcode"
+    + " FROM unnest($1::text[]) AS keys(key) JOIN %1$s.%2$s u"
+    + " ON lower(f_unaccent(u.jsonb->>'username')) = lower(f_unaccent(keys.key))"
+    + " UNION ALL SELECT u.id, NULL, keys.key FROM unnest($2::text[]) AS keys(key) JOIN %1$s.%2$s u"
+    + " ON lower(f_unaccent(u.jsonb->>'barcode')) = lower(f_unaccent(keys.key))";
+  private static final String NORMALIZE_UNIQUE_KEYS_SQL = "SELECT keys.key, lower(f_unaccent(keys.key)) AS normalized"
+    + " FROM unnest($1::text[]) AS keys(key)";
+
   public Future<User> getUserByIdForUpdate(Conn conn, String userId) {
     return conn.getByIdForUpdate(TABLE_NAME_USERS, userId, User.class)
       .onFailure(t -> logger.error("getUserByIdForUpdate failed, userId={}", userId, t));
@@ -34,6 +68,183 @@ public class UsersService {
       .onFailure(e -> logger.error("updateUser failed, userId={}", user.getId(), e));
   }
 
+  public Future<User> getUserById(Conn conn, String userId) {
+    return conn.getById(TABLE_NAME_USERS, userId, User.class)
+      .onFailure(t -> logger.error("getUserById failed, userId={}", userId, t));
+  }
+
+  /**
+   * Overwrites the user only if the stored user still has the expected version, the compare and
+   * the write are one statement so the row is only locked while it is written.
+   *
+   * @param conn connection in transaction
+   * @param tenantId the tenant id
+   * @param user the user, its _version must be the expected version, 0 for a user without _version
+   * @return future with true if the user has been updated, false if its version has changed
+   */
+  public Future<Boolean> updateUserIfVersionMatches(Conn conn, String tenantId, User user) {
+    String query = String.format(UPDATE_USER_IF_VERSION_MATCHES_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USERS);
+    try {
+      Tuple params = Tuple.of(PostgresClient.pojo2JsonObject(user), UUID.fromString(user.getId()),
+        String.valueOf(user.getVersion()));
+      return conn.execute(query, params)
+        .map(rowSet -> rowSet.rowCount() == 1)
+        .onSuccess(updated -> logger.info("updateUserIfVersionMatches complete, userId={}, updated={}", user.getId(), updated))
+        .onFailure(e -> logger.error("updateUserIfVersionMatches failed, userId={}", user.getId(), e));
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Locks and reads the users with the given ids with a single query.
+   *
+   * @param conn connection in transaction
+   * @param tenantId the tenant id
+   * @param userIds ids of the users, all of them must be valid UUIDs
+   * @return future with the found users by id, ids that don't exist are absent
+   */
+  public Future<Map<String, User>> getUsersByIdsForUpdate(Conn conn, String tenantId, Collection<String> userIds) {
+    String query = String.format(SELECT_USERS_BY_IDS_FOR_UPDATE_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USERS);
+    return conn.execute(query, Tuple.of(toUuidArray(userIds)))
+      .map(rows -> {
+        Map<String, User> users = new HashMap<>();
+        rows.forEach(row -> {
+          User user = row.getJsonObject(JSONB).mapTo(User.class);
+          users.put(user.getId(), user);
+        });
+        return users;
+      })
+      .onFailure(t -> logger.error("getUsersByIdsForUpdate failed, count={}", userIds.size(), t));
+  }
+
+  /**
+   * Reads the users with the given ids with a single query, the stored jsonb is returned as text
+   * without mapping it to {@link User}.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tenantId the tenant id
+   * @param userIds distinct ids of the users, all of them must be valid UUIDs
+   * @return future with the jsonb of the found users in the order of the ids
+   */
+  public Future<List<String>> getUsersJsonByIds(PostgresClient pgClient, String tenantId, Collection<String> userIds) {
+    String query = String.format(SELECT_USERS_BY_IDS_IN_ORDER_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USERS);
+    return pgClient.execute(query, Tuple.of(toUuidArray(userIds)))
+      .map(rows -> {
+        List<String> users = new ArrayList<>(rows.rowCount());
+        rows.forEach(row -> users.add(row.getString(0)));
+        return users;
+      })
+      .onFailure(t -> logger.error("getUsersJsonByIds failed, count={}", userIds.size(), t));
+  }
+
+  /**
+   * Finds the user whose barcode, username or externalSystemId equals the identifier. Each branch of the
+   * query uses the expression of the unique index of its field, so it is three index probes.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tenantId the tenant id
+   * @param identifier the value to look for, compared ignoring case and accents
+   * @return future with the match, or with null if there is none
+   */
+  public Future<ResolvedUser> resolveUserByIdentifier(PostgresClient pgClient, String tenantId, String identifier) {
+    String query = String.format(RESOLVE_IDENTIFIER_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USERS);
+    return pgClient.execute(query, Tuple.of(identifier))
+      .map(rows -> {
+        if (rows.rowCount() == 0) {
+          return null;
+        }
+        Row row = rows.iterator().next();
+        return new ResolvedUser(row.getString("field"), row.getString(2));
+      })
+      .onFailure(t -> logger.error("resolveUserByIdentifier failed", t));
+  }
+
+  /**
+   * @param matchedField the field that equals the identifier
+   * @param userJson the stored jsonb of the user
+   */
+  public record ResolvedUser(String matchedField, String userJson) {
+  }
+
+  /**
+   * Inserts new users and overwrites existing ones with a single multi-row statement.
+   *
+   * @param conn connection in transaction
+   * @param users the users, each one with an id
+   * @return future with the upserted rows
+   */
+  public Future<RowSet<Row>> upsertUsers(Conn conn, List<User> users) {
+    return conn.upsertBatch(TABLE_NAME_USERS, users)
+      .onSuccess(x -> logger.info("upsertUsers complete, count={}", users.size()))
+      .onFailure(e -> logger.error("upsertUsers failed, count={}", users.size(), e));
+  }
+
+  /**
+   * Finds the users that already own one of the given usernames or barcodes, the comparison
+   * ignores case and accents like the unique indexes on these fields.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param tenantId the tenant id
+   * @param usernames usernames
+   * @param barcodes barcodes
+   * @return future with the id of each owner and the given username or barcode it owns
+   */
+  public Future<List<User>> findUsernameAndBarcodeOwners(PostgresClient pgClient, String tenantId,
+    Collection<String> usernames, Collection<String> barcodes) {
+
+    if (usernames.isEmpty() && barcodes.isEmpty()) {
+      return Future.succeededFuture(new ArrayList<>());
+    }
+    String query = String.format(SELECT_USERNAME_AND_BARCODE_OWNERS_SQL, convertToPsqlStandard(tenantId), TABLE_NAME_USERS);
+    Tuple params = Tuple.of(usernames.toArray(String[]::new), barcodes.toArray(String[]::new));
+    return pgClient.execute(query, params)
+      .map(rows -> {
+        List<User> owners = new ArrayList<>();
+        rows.forEach(row -> owners.add(new User()
+          .withId(row.getUUID(ID).toString())
+          .withUsername(row.getString("username"))
+          .withBarcode(row.getString("barcode"))));
+        return owners;
+      });
+  }
+
+  /**
+   * Normalizes usernames or barcodes the way the unique indexes on these fields compare them,
+   * without case and accents.
+   *
+   * @param pgClient the postgres client of the tenant
+   * @param keys usernames or barcodes
+   * @return future with the normalized value of each given value
+   */
+  public Future<Map<String, String>> normalizeUniqueKeys(PostgresClient pgClient, Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return Future.succeededFuture(new HashMap<>());
+    }
+    return pgClient.execute(NORMALIZE_UNIQUE_KEYS_SQL, Tuple.of(keys.toArray(String[]::new)))
+      .map(rows -> {
+        Map<String, String> normalized = new HashMap<>();
+        rows.forEach(row -> normalized.put(row.getString("key"), row.getString("normalized")));
+        return normalized;
+      });
+  }
+
+  public static boolean isUuid(String value) {
+    if (value == null) {
+      return false;
+    }
+    try {
+      UUID.fromString(value);
+      return value.length() == 36;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static UUID[] toUuidArray(Collection<String> ids) {
+    return ids.stream().map(UUID::fromString).toArray(UUID[]::new);
+  }
+
   public static User getConsortiumUserDto(User user) {
     User userDto = new User()
       .withId(user.getId())
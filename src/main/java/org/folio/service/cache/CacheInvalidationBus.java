@@ -0,0 +1,146 @@
+package org.folio.service.cache;
+
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.event.service.UserTenantService;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.pgclient.PgNotification;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Keeps the in-process caches of all instances of the module in line with the writes. A write
+ * evicts the entries of this instance right away and sends a Postgres NOTIFY with the tenant,
+ * entity type and id, every instance LISTENs on a dedicated connection and evicts the same
+ * entries from its caches. All tenants share the database, so one channel is used.
+ *
+ * <p>Notifications sent while the connection of an instance is down are lost, so everything is
+ * evicted when it has reconnected. Until then the time to live of the caches applies.
+ */
+public final class CacheInvalidationBus {
+
+  public enum EntityType {
+    USER, GROUP, ADDRESS_TYPE, DEPARTMENT, CONFIG, TENANT
+  }
+
+  private static final Logger logger = LogManager.getLogger(CacheInvalidationBus.class);
+  static final String CHANNEL = "mod_users_cache_invalidation";
+  private static final String NOTIFY_SQL = "SELECT pg_notify($1, $2)";
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+  private static final CacheInvalidationBus INSTANCE = new CacheInvalidationBus(UUID.randomUUID().toString());
+
+  private final String instanceId;
+  private volatile PgConnection connection;
+
+  CacheInvalidationBus(String instanceId) {
+    this.instanceId = instanceId;
+  }
+
+  public static CacheInvalidationBus getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Opens the listening connection, it is opened again whenever it is closed.
+   *
+   * @param vertx the vertx instance
+   * @param connectOptions options of the module database
+   * @return future completed once the instance listens
+   */
+  public Future<Void> start(Vertx vertx, PgConnectOptions connectOptions) {
+    return PgConnection.connect(vertx, connectOptions)
+      .compose(conn -> conn.query("LISTEN " + CHANNEL).execute()
+        .onFailure(e -> conn.close())
+        .map(conn))
+      .onSuccess(conn -> {
+        boolean reconnected = connection != null;
+        connection = conn;
+        conn.notificationHandler(this::onNotification);
+        conn.closeHandler(v -> {
+          logger.warn("start:: the connection listening on {} has been closed", CHANNEL);
+          reconnectLater(vertx, connectOptions);
+        });
+        if (reconnected) {
+          evictAll();
+        }
+        logger.info("start:: listening on {}", CHANNEL);
+      })
+      .onFailure(e -> {
+        logger.error("start:: cannot listen on {}", CHANNEL, e);
+        reconnectLater(vertx, connectOptions);
+      })
+      .mapEmpty();
+  }
+
+  /**
+   * Evicts the cached entries of the entity here and sends the notification to the other instances.
+   *
+   * @param tenantId the tenant id
+   * @param type type of the written entity
+   * @param id id of the written entity, null when all entities of the type may have changed
+   */
+  public void invalidate(String tenantId, EntityType type, String id) {
+    evict(tenantId, type, id);
+    PgConnection conn = connection;
+    if (conn == null) {
+      return;
+    }
+    String payload = new JsonObject()
+      .put("origin", instanceId)
+      .put("tenant", tenantId)
+      .put("type", type.name())
+      .put("id", id)
+      .encode();
+    conn.preparedQuery(NOTIFY_SQL).execute(Tuple.of(CHANNEL, payload))
+      .onFailure(e -> logger.warn("invalidate:: cannot notify {} {} of tenant {}", type, id, tenantId, e));
+  }
+
+  void onNotification(PgNotification notification) {
+    try {
+      JsonObject payload = new JsonObject(notification.getPayload());
+      if (instanceId.equals(payload.getString("origin"))) {
+        return;
+      }
+      evict(payload.getString("tenant"), EntityType.valueOf(payload.getString("type")), payload.getString("id"));
+    } catch (Exception e) {
+      logger.warn("onNotification:: ignoring {}", notification.getPayload(), e);
+    }
+  }
+
+  private static void evict(String tenantId, EntityType type, String id) {
+    logger.debug("evict:: tenantId {}, type {}, id {}", tenantId, type, id);
+    switch (type) {
+      case USER -> {
+        if (id == null) {
+          UserCache.getInstance().invalidateTenant(tenantId);
+        } else {
+          UserCache.getInstance().invalidate(tenantId, id);
+        }
+      }
+      case GROUP -> ReferenceDataCache.getInstance().invalidatePatronGroups(tenantId);
+      case ADDRESS_TYPE -> ReferenceDataCache.getInstance().invalidateAddressTypes(tenantId);
+      case TENANT -> {
+        UserCache.getInstance().invalidateTenant(tenantId);
+        ReferenceDataCache.getInstance().invalidateTenant(tenantId);
+        UserTenantService.invalidateConsortiaTenantCache(tenantId);
+      }
+      // departments and configurations are not cached by the module yet
+      default -> { }
+    }
+  }
+
+  private static void evictAll() {
+    UserCache.getInstance().invalidateAll();
+    ReferenceDataCache.getInstance().invalidateAll();
+  }
+
+  private void reconnectLater(Vertx vertx, PgConnectOptions connectOptions) {
+    vertx.setTimer(RECONNECT_DELAY_MILLIS, id -> start(vertx, connectOptions));
+  }
+}
@@ -0,0 +1,137 @@
+package org.folio.service.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.cql2pgjson.CQL2PgJSON;
+import org.folio.cql2pgjson.exception.FieldException;
+import org.folio.cql2pgjson.exception.QueryValidationException;
+import org.folio.cql2pgjson.model.SqlSelect;
+
+/**
+ * Caches the translation of CQL queries to SQL. A {@link CQL2PgJSON} is created once per list of
+ * fields instead of once per request, and the SQL of a query is kept in a bounded least recently
+ * used map, so a repeated query is neither parsed nor translated again.
+ *
+ * <p>The key is the query text: CQL2PgJSON writes the values of a query into the SQL, and the SQL
+ * of a value may differ in more than the value, e.g. for a truncated term.
+ *
+ * <p>Hits and misses are exposed by the JMX bean {@value #MBEAN_NAME}.
+ */
+public final class CqlTranslationCache implements CqlTranslationCacheMXBean {
+
+  private static final Logger logger = LogManager.getLogger(CqlTranslationCache.class);
+  private static final String MBEAN_NAME = "org.folio.users:type=CqlTranslationCache";
+  private static final int MAX_SIZE = 1000;
+  private static final CqlTranslationCache INSTANCE = new CqlTranslationCache(MAX_SIZE);
+
+  private final Map<List<String>, CQL2PgJSON> translators = new ConcurrentHashMap<>();
+  private final Map<String, SqlSelect> translations;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  CqlTranslationCache(int maxSize) {
+    translations = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, SqlSelect> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  static {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(MBEAN_NAME));
+    } catch (Exception e) {
+      logger.warn("Cannot register {}", MBEAN_NAME, e);
+    }
+  }
+
+  public static CqlTranslationCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @param fields the jsonb fields to query, e.g. users.jsonb
+   * @return the shared translator of the fields, its translations are cached
+   */
+  public CQL2PgJSON getTranslator(List<String> fields) throws FieldException {
+    CQL2PgJSON translator = translators.get(fields);
+    if (translator != null) {
+      return translator;
+    }
+    translator = new CachingCql2PgJson(List.copyOf(fields));
+    CQL2PgJSON existing = translators.putIfAbsent(List.copyOf(fields), translator);
+    return existing == null ? translator : existing;
+  }
+
+  public CQL2PgJSON getTranslator(String field) throws FieldException {
+    return getTranslator(List.of(field));
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public long getSize() {
+    synchronized (translations) {
+      return translations.size();
+    }
+  }
+
+  private SqlSelect translate(List<String> fields, String cql, CqlTranslator translator)
+      throws QueryValidationException {
+
+    String key = String.join(",", fields) + '\n' + cql;
+    synchronized (translations) {
+      SqlSelect sqlSelect = translations.get(key);
+      if (sqlSelect != null) {
+        hits.incrementAndGet();
+        return sqlSelect;
+      }
+    }
+    misses.incrementAndGet();
+    SqlSelect sqlSelect = translator.translate(cql);
+    synchronized (translations) {
+      translations.put(key, sqlSelect);
+    }
+    return sqlSelect;
+  }
+
+  @FunctionalInterface
+  private interface CqlTranslator {
+    SqlSelect translate(String cql) throws QueryValidationException;
+  }
+
+  /**
+   * Looks up the SQL of a query in the cache before translating it.
+   */
+  private final class CachingCql2PgJson extends CQL2PgJSON {
+    private final List<String> fields;
+
+    CachingCql2PgJson(List<String> fields) throws FieldException {
+      super(fields);
+      this.fields = fields;
+    }
+
+    @Override
+    public SqlSelect toSql(String cql) throws QueryValidationException {
+      return translate(fields, cql, super::toSql);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.service.cache;
+
+/**
+ * Statistics of the {@link CqlTranslationCache} for JMX.
+ */
+public interface CqlTranslationCacheMXBean {
+
+  long getHits();
+
+  long getMisses();
+
+  long getSize();
+}
@@ -0,0 +1,89 @@
+package org.folio.service.cache;
+
+import static org.folio.rest.impl.AddressTypeAPI.ADDRESS_TYPE_TABLE;
+import static org.folio.rest.impl.UserGroupAPI.GROUP_TABLE;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.AddressType;
+import org.folio.rest.jaxrs.model.Usergroup;
+import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.persist.PostgresClient;
+
+import io.vertx.core.Future;
+
+/**
+ * Per-tenant cache of the address type and patron group ids, user validation only needs
+ * to know whether a referenced id exists. An entry is dropped whenever the reference data of
+ * the tenant is written and expires after {@link #TTL_MILLIS} to pick up writes made by
+ * other instances of the module.
+ */
+public final class ReferenceDataCache {
+
+  private static final Logger logger = LogManager.getLogger(ReferenceDataCache.class);
+  private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  private static final ReferenceDataCache INSTANCE = new ReferenceDataCache();
+
+  private final TenantCache<Set<String>> addressTypeIds = new TenantCache<>(TTL_MILLIS);
+  private final TenantCache<Set<String>> patronGroupIds = new TenantCache<>(TTL_MILLIS);
+
+  private ReferenceDataCache() {
+  }
+
+  public static ReferenceDataCache getInstance() {
+    return INSTANCE;
+  }
+
+  public Future<Set<String>> getAddressTypeIds(PostgresClient postgresClient) {
+    return get(addressTypeIds, postgresClient, ADDRESS_TYPE_TABLE, AddressType.class, AddressType::getId);
+  }
+
+  public Future<Set<String>> getPatronGroupIds(PostgresClient postgresClient) {
+    return get(patronGroupIds, postgresClient, GROUP_TABLE, Usergroup.class, Usergroup::getId);
+  }
+
+  public void invalidateAddressTypes(String tenantId) {
+    logger.debug("invalidateAddressTypes:: tenantId {}", tenantId);
+    addressTypeIds.invalidate(tenantId);
+  }
+
+  public void invalidatePatronGroups(String tenantId) {
+    logger.debug("invalidatePatronGroups:: tenantId {}", tenantId);
+    patronGroupIds.invalidate(tenantId);
+  }
+
+  public void invalidateTenant(String tenantId) {
+    invalidateAddressTypes(tenantId);
+    invalidatePatronGroups(tenantId);
+  }
+
+  public void invalidateAll() {
+    logger.debug("invalidateAll::");
+    addressTypeIds.invalidateAll();
+    patronGroupIds.invalidateAll();
+  }
+
+  /**
+   * Returns the cached ids of the tenant, loading all rows of the table when there is no valid entry.
+   */
+  private <T> Future<Set<String>> get(TenantCache<Set<String>> cache, PostgresClient postgresClient,
+    String tableName, Class<T> clazz, Function<T, String> idGetter) {
+
+    try {
+      return cache.get(postgresClient.getTenantId(), () -> {
+        logger.debug("get:: loading {} ids for tenant {}", tableName, postgresClient.getTenantId());
+        return postgresClient.get(tableName, clazz, new Criterion(), false)
+          .map(results -> results.getResults().stream()
+            .map(idGetter)
+            .collect(Collectors.toUnmodifiableSet()));
+      });
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+}
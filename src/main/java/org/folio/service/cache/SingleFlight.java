@@ -0,0 +1,71 @@
+package org.folio.service.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Lets concurrent identical reads share one in-flight load. A key is only held while its load
+ * runs, a call made after the load has completed starts a new one, so nothing is cached.
+ *
+ * <p>The load runs on the context of the caller that has started it, the other callers get the
+ * result on their own context. The loaded value is handed to all callers and must not be modified.
+ *
+ * @param <V> type of the loaded value
+ */
+public class SingleFlight<V> {
+
+  private final Map<String, Future<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * @param key identifies the read, e.g. tenant and id
+   * @param loader runs the read when no identical one is in flight
+   * @return future with the value of the in-flight load
+   */
+  public Future<V> execute(String key, Supplier<Future<V>> loader) {
+    Promise<V> promise = Promise.promise();
+    Future<V> existing = inFlight.putIfAbsent(key, promise.future());
+    if (existing != null) {
+      return onCallerContext(existing);
+    }
+    try {
+      loader.get().onComplete(result -> {
+        inFlight.remove(key, promise.future());
+        promise.handle(result);
+      });
+    } catch (Exception e) {
+      inFlight.remove(key, promise.future());
+      promise.fail(e);
+    }
+    return promise.future();
+  }
+
+  private static <V> Future<V> onCallerContext(Future<V> future) {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+    Promise<V> promise = Promise.promise();
+    future.onComplete(result -> {
+      if (Vertx.currentContext() == context) {
+        promise.handle(result);
+      } else {
+        context.runOnContext(v -> promise.handle(result));
+      }
+    });
+    return promise.future();
+  }
+
+  public static String key(String tenantId, String id) {
+    return tenantId + ":" + id;
+  }
+
+  int inFlightCount() {
+    return inFlight.size();
+  }
+}
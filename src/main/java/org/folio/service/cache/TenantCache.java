@@ -0,0 +1,57 @@
+package org.folio.service.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.vertx.core.Future;
+
+/**
+ * Holds one asynchronously loaded value per tenant. Concurrent callers share the same load,
+ * a failed load is not kept and a value expires after the time to live.
+ *
+ * @param <V> type of the cached value
+ */
+public class TenantCache<V> {
+
+  private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final long ttlMillis;
+
+  public TenantCache(long ttlMillis) {
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Returns the value of the tenant, calling the loader when there is no valid entry.
+   *
+   * @param tenantId the tenant id
+   * @param loader loads the value from storage
+   * @return future with the value
+   */
+  public Future<V> get(String tenantId, Supplier<Future<V>> loader) {
+    try {
+      long now = System.currentTimeMillis();
+      Entry<V> entry = entries.compute(tenantId, (key, existing) -> {
+        if (existing != null && existing.expiresAt > now) {
+          return existing;
+        }
+        return new Entry<>(loader.get(), now + ttlMillis);
+      });
+      entry.value.onFailure(e -> entries.remove(tenantId, entry));
+      return entry.value;
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  public void invalidate(String tenantId) {
+    entries.remove(tenantId);
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  private record Entry<V>(Future<V> value, long expiresAt) {
+  }
+}
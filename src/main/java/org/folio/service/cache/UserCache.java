@@ -0,0 +1,180 @@
+package org.folio.service.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Future;
+
+/**
+ * Optional per-tenant cache of the stored JSON of single users, for the users fetched over and
+ * over by id. Each tenant has a least recently used map bounded by {@code USER_CACHE_MAX_SIZE}
+ * entries, an entry expires after {@code USER_CACHE_TTL_SECONDS} in case the invalidation of a
+ * write made by another instance is lost. The cache is disabled when the maximum size is 0, the
+ * default.
+ *
+ * <p>Writes invalidate the users they change through the {@link CacheInvalidationBus}. A load
+ * that was started before an invalidation of its tenant is returned but not cached, so it can't
+ * put back a user read before the write.
+ *
+ * <p>Hits and misses are exposed by the JMX bean {@value #MBEAN_NAME}.
+ */
+public final class UserCache implements UserCacheMXBean {
+
+  private static final Logger logger = LogManager.getLogger(UserCache.class);
+  private static final String MAX_SIZE_PROPERTY = "USER_CACHE_MAX_SIZE";
+  private static final String TTL_SECONDS_PROPERTY = "USER_CACHE_TTL_SECONDS";
+  private static final String MBEAN_NAME = "org.folio.users:type=UserCache";
+  private static final UserCache INSTANCE = new UserCache(
+    Integer.parseInt(getProperty(MAX_SIZE_PROPERTY, "0")),
+    TimeUnit.SECONDS.toMillis(Long.parseLong(getProperty(TTL_SECONDS_PROPERTY, "60"))));
+
+  private final Map<String, TenantUsers> tenants = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final int maxSize;
+  private final long ttlMillis;
+
+  UserCache(int maxSize, long ttlMillis) {
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+  }
+
+  public static UserCache getInstance() {
+    return INSTANCE;
+  }
+
+  static {
+    if (INSTANCE.isEnabled()) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(MBEAN_NAME));
+      } catch (Exception e) {
+        logger.warn("Cannot register {}", MBEAN_NAME, e);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Returns the JSON of the user, calling the loader when there is no valid entry.
+   *
+   * @param tenantId the tenant id
+   * @param userId the user id
+   * @param loader loads the JSON of the user from storage, null if the user doesn't exist
+   * @return future with the JSON of the user, null if it doesn't exist
+   */
+  public Future<String> get(String tenantId, String userId, Supplier<Future<String>> loader) {
+    if (!isEnabled()) {
+      return loader.get();
+    }
+    TenantUsers users = tenants.computeIfAbsent(tenantId, key -> new TenantUsers(maxSize));
+    long now = System.currentTimeMillis();
+    long generation;
+    synchronized (users) {
+      Entry entry = users.get(userId);
+      if (entry != null && entry.expiresAt > now) {
+        hits.incrementAndGet();
+        return Future.succeededFuture(entry.json);
+      }
+      generation = users.generation;
+    }
+    misses.incrementAndGet();
+    return loader.get()
+      .onSuccess(json -> {
+        if (json == null) {
+          return;
+        }
+        synchronized (users) {
+          if (users.generation == generation) {
+            users.put(userId, new Entry(json, System.currentTimeMillis() + ttlMillis));
+          }
+        }
+      });
+  }
+
+  public void invalidate(String tenantId, String userId) {
+    TenantUsers users = tenants.get(tenantId);
+    if (users == null) {
+      return;
+    }
+    synchronized (users) {
+      users.generation++;
+      users.remove(userId);
+    }
+  }
+
+  public void invalidateTenant(String tenantId) {
+    TenantUsers users = tenants.get(tenantId);
+    if (users == null) {
+      return;
+    }
+    logger.debug("invalidateTenant:: tenantId {}", tenantId);
+    synchronized (users) {
+      users.generation++;
+      users.clear();
+    }
+  }
+
+  public void invalidateAll() {
+    tenants.keySet().forEach(this::invalidateTenant);
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public long getSize() {
+    long size = 0;
+    for (TenantUsers users : tenants.values()) {
+      synchronized (users) {
+        size += users.size();
+      }
+    }
+    return size;
+  }
+
+  private static String getProperty(String key, String defaultValue) {
+    return StringUtils.firstNonBlank(System.getenv(key), System.getProperty(key), defaultValue);
+  }
+
+  private record Entry(String json, long expiresAt) {
+  }
+
+  /**
+   * Users of a tenant in access order, guarded by synchronizing on the map.
+   */
+  private static final class TenantUsers extends LinkedHashMap<String, Entry> {
+    private final int maxSize;
+    private long generation;
+
+    TenantUsers(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.service.cache;
+
+/**
+ * Statistics of the {@link UserCache} for JMX.
+ */
+public interface UserCacheMXBean {
+
+  long getHits();
+
+  long getMisses();
+
+  long getSize();
+}
@@ -14,6 +14,8 @@ import org.folio.rest.jaxrs.model.CustomFieldStatistic;
 import org.folio.rest.jaxrs.model.CustomFields;
 import org.folio.rest.jaxrs.model.User;
 import org.folio.service.RecordService;
+import org.folio.service.cache.CacheInvalidationBus;
+import org.folio.service.cache.CacheInvalidationBus.EntityType;
 
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -49,7 +51,8 @@ public class RecordServiceImpl implements RecordService {
     Future<List<User>> related = repository.findUsersByField(field, tenantId)
       .onSuccess(users -> LOG.info("The number of users found with the given field: {}", users.size()));
 
-    return related.compose(users -> removeCustomFieldFromUsers(users, field, tenantId));
+    return related.compose(users -> removeCustomFieldFromUsers(users, field, tenantId))
+      .onComplete(x -> CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.USER, null));
   }
 
   @Override
@@ -58,7 +61,8 @@ public class RecordServiceImpl implements RecordService {
 
     return repository.findUsersByFieldValues(recordUpdate, tenantId)
       .onSuccess(users -> LOG.info("The number of users found with the given field: {}", users.size()))
-      .compose(users -> removeCustomFieldValueOrSetDefault(users, recordUpdate, tenantId));
+      .compose(users -> removeCustomFieldValueOrSetDefault(users, recordUpdate, tenantId))
+      .onComplete(x -> CacheInvalidationBus.getInstance().invalidate(tenantId, EntityType.USER, null));
   }
 
   private Future<Void> removeCustomFieldFromUsers(List<User> users, CustomField field, String tenantId) {
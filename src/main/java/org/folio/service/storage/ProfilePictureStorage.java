@@ -18,6 +18,7 @@ import org.folio.rest.jaxrs.resource.Users;
 import org.folio.rest.persist.PgUtil;
 import org.folio.rest.tools.utils.TenantTool;
 import org.folio.s3.client.FolioS3Client;
+import org.folio.service.cache.SingleFlight;
 import org.folio.s3.exception.S3ClientException;
 
 import javax.ws.rs.core.Response;
@@ -65,6 +66,7 @@ public class ProfilePictureStorage {
   private final FolioS3ClientFactory folioS3ClientFactory = new FolioS3ClientFactory();
   private String path;
   private static final Logger logger = LogManager.getLogger(ProfilePictureStorage.class);
+  private static final SingleFlight<Config> CONFIG_READS = new SingleFlight<>();
 
   public void storeProfilePictureInObjectStorage(byte[] fileBytes, Map<String, String> okapiHeaders, String profileId,
                         Handler<AsyncResult<Response>> asyncResultHandler) {
@@ -260,11 +262,14 @@ public class ProfilePictureStorage {
     return promise.future();
   }
 
+  /**
+   * Concurrent calls of a tenant share one query, the returned config must not be modified.
+   */
   public Future<Config> getProfilePictureConfig(Map<String, String> okapiHeaders, Context vertxContext) {
     logger.info("getProfilePictureConfig:: Getting profile picture configuration...");
-    return PgUtil.postgresClient(vertxContext, okapiHeaders)
+    return CONFIG_READS.execute(TenantTool.tenantId(okapiHeaders), () -> PgUtil.postgresClient(vertxContext, okapiHeaders)
       .execute(createSelectQuery(okapiHeaders, GET_CONFIGURATION_SQL, TABLE_NAME_CONFIG))
-      .compose(this::mapResultSetToConfig);
+      .compose(this::mapResultSetToConfig));
   }
 
   public Future<Void> cleanUp(Map<String, String> okapiHeaders, Context vertxContext) {
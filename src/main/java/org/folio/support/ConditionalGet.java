@@ -0,0 +1,132 @@
+package org.folio.support;
+
+import static io.vertx.core.Future.succeededFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Adds an ETag to successful GET responses and answers a request whose If-None-Match holds
+ * the current ETag with 304 Not Modified and no body.
+ */
+public final class ConditionalGet {
+  private static final String IF_NONE_MATCH_HEADER = "if-none-match";
+  private static final String VERSION = "_version";
+  private static final String WEAK_PREFIX = "W/";
+
+  private ConditionalGet() {
+  }
+
+  /**
+   * The ETag is the _version of a record, otherwise it is derived from the id and the metadata
+   * updatedDate of the records and the totalRecords of a collection.
+   */
+  public static Handler<AsyncResult<Response>> withEtag(Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler) {
+
+    return conditional(okapiHeaders, asyncResultHandler, false);
+  }
+
+  /**
+   * For records with computed fields that don't change their updatedDate, the ETag is derived
+   * from the whole content.
+   */
+  public static Handler<AsyncResult<Response>> withContentEtag(Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler) {
+
+    return conditional(okapiHeaders, asyncResultHandler, true);
+  }
+
+  private static Handler<AsyncResult<Response>> conditional(Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, boolean wholeContent) {
+
+    String ifNoneMatch = okapiHeaders.get(IF_NONE_MATCH_HEADER);
+    return result -> {
+      if (result.failed() || result.result().getStatus() != 200 || result.result().getEntity() == null) {
+        asyncResultHandler.handle(result);
+        return;
+      }
+      Response response = result.result();
+      Object entity = response.getEntity();
+      JsonObject json = entity instanceof String text ? new JsonObject(text) : JsonObject.mapFrom(entity);
+      String etag = wholeContent ? weakEtag(json.encode()) : etag(json);
+      if (matches(ifNoneMatch, etag)) {
+        asyncResultHandler.handle(succeededFuture(
+          Response.notModified().header(HttpHeaders.ETAG, etag).build()));
+        return;
+      }
+      asyncResultHandler.handle(succeededFuture(
+        Response.fromResponse(response).header(HttpHeaders.ETAG, etag).build()));
+    };
+  }
+
+  static String etag(JsonObject json) {
+    if (json.getValue(VERSION) != null) {
+      return "\"" + json.getValue(VERSION) + "\"";
+    }
+    StringBuilder tokens = new StringBuilder();
+    boolean collection = false;
+    for (Map.Entry<String, Object> field : json) {
+      if (field.getValue() instanceof JsonArray records) {
+        collection = true;
+        records.forEach(item -> tokens.append(recordToken(item)).append(';'));
+      }
+    }
+    if (!collection) {
+      tokens.append(recordToken(json));
+    }
+    tokens.append(json.getValue("totalRecords"));
+    return weakEtag(tokens.toString());
+  }
+
+  /**
+   * If-None-Match uses the weak comparison, the W/ prefix is ignored.
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaqueTag = etag.replace(WEAK_PREFIX, "");
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if ("*".equals(tag) || tag.replace(WEAK_PREFIX, "").equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String recordToken(Object item) {
+    if (!(item instanceof JsonObject record)) {
+      return String.valueOf(item);
+    }
+    if (record.getValue(VERSION) != null) {
+      return record.getValue("id") + ":" + record.getValue(VERSION);
+    }
+    JsonObject metadata = record.getJsonObject("metadata");
+    if (metadata != null && metadata.getValue("updatedDate") != null) {
+      return record.getValue("id") + ":" + metadata.getValue("updatedDate");
+    }
+    return record.encode();
+  }
+
+  private static String weakEtag(String content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+      return WEAK_PREFIX + "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
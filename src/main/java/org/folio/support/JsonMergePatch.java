@@ -0,0 +1,56 @@
+package org.folio.support;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * JSON merge patch as defined by RFC 7386: objects are merged recursively, a null value removes
+ * the field and any other value replaces it, arrays included.
+ */
+public final class JsonMergePatch {
+
+  private JsonMergePatch() {
+  }
+
+  /**
+   * Applies the patch to a copy of the target.
+   *
+   * @param target the document to patch, it is not modified
+   * @param patch the merge patch
+   * @return the patched document
+   */
+  public static JsonObject apply(JsonObject target, JsonObject patch) {
+    JsonObject result = target == null ? new JsonObject() : target.copy();
+    for (String key : patch.fieldNames()) {
+      Object value = patch.getValue(key);
+      if (value == null) {
+        result.remove(key);
+      } else if (value instanceof JsonObject patchObject) {
+        Object targetValue = result.getValue(key);
+        result.put(key, apply(targetValue instanceof JsonObject targetObject ? targetObject : null, patchObject));
+      } else {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return whether the patch sets or removes the field, nested fields are separated by dots
+   */
+  public static boolean touches(JsonObject patch, String path) {
+    JsonObject node = patch;
+    String[] keys = path.split("\\.");
+    for (int i = 0; i < keys.length - 1; i++) {
+      if (!node.containsKey(keys[i])) {
+        return false;
+      }
+      Object value = node.getValue(keys[i]);
+      if (!(value instanceof JsonObject child)) {
+        // the whole parent is replaced or removed
+        return true;
+      }
+      node = child;
+    }
+    return node.containsKey(keys[keys.length - 1]);
+  }
+}
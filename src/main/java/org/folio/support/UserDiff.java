@@ -0,0 +1,34 @@
+package org.folio.support;
+
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.User;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Compares users by their content, the fields maintained by the module or the database are
+ * ignored.
+ */
+public final class UserDiff {
+  private static final List<String> IGNORED_FIELDS = List.of("metadata", "createdDate", "updatedDate", "_version");
+
+  private UserDiff() {
+  }
+
+  /**
+   * @return whether writing the user would not change the stored user apart from its metadata
+   */
+  public static boolean isUnchanged(User user, User userFromStorage) {
+    if (user == null || userFromStorage == null) {
+      return false;
+    }
+    return content(user).equals(content(userFromStorage));
+  }
+
+  private static JsonObject content(User user) {
+    JsonObject json = JsonObject.mapFrom(user);
+    IGNORED_FIELDS.forEach(json::remove);
+    return json;
+  }
+}
@@ -11,6 +11,7 @@ public class UsersApiConstants {
   public static final String TABLE_NAME_PROFILE_PICTURE = "profile_picture";
   public static final String TABLE_NAME_USERS = "users";
   public static final String TABLE_NAME_CONFIG = "configuration";
+  public static final String TABLE_NAME_USER_JOB = "user_job";
   public static final String SAVE_PROFILE_PICTURE_SQL = "INSERT INTO %s.%s (id, profile_picture_blob, hmac) VALUES ($1, $2, $3)";
   public static final String GET_CONFIGURATION_SQL = "SELECT * FROM %s.%s WHERE configName = 'PROFILE_PICTURE_CONFIG'";
   public static final String DELETE_USERS_SQL = "DELETE from %s.%s";
@@ -30,6 +31,9 @@ public class UsersApiConstants {
   public static final String DUPLICATE_BARCODE_ERROR = "This barcode has already been taken";
   public static final String DUPLICATE_USERNAME_ERROR = "User with this username already exists";
   public static final String DUPLICATE_ID_ERROR = "User with this id already exists";
+  public static final String VERSION_CONFLICT_ERROR = "Cannot update user %s because it has been changed (optimistic locking): stored _version is %s, If-Match is %s";
+  public static final String IF_MATCH_HEADER = "if-match";
+  public static final String X_UNCHANGED_HEADER = "X-Unchanged";
   public static final String CONFIG_NAME = "configname";
   public static final String JSONB = "jsonb";
   public static final String ENABLED = "enabled";
@@ -0,0 +1,277 @@
+package org.folio.verticle;
+
+import static org.folio.event.KafkaConfigSingleton.getPropertyValue;
+import static org.folio.repository.UserEventsLogRepository.OUTBOX_CHANNEL;
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.event.KafkaConfigSingleton;
+import org.folio.event.service.KafkaProducerPool;
+import org.folio.event.service.UserOutboxService;
+import org.folio.event.service.UserOutboxService.DrainResult;
+import org.folio.kafka.KafkaConfig;
+import org.folio.okapi.common.GenericCompositeFuture;
+import org.folio.rest.tools.utils.ModuleName;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Sends the events of the outbox to Kafka as soon as they have been committed. The transaction
+ * that saves outbox logs sends a Postgres NOTIFY with the tenant id, the verticle LISTENs on a
+ * dedicated connection and drains the outbox of the tenant until it is empty, in runs of at most
+ * {@value UserOutboxService#DRAIN_BUDGET_MILLIS} ms. The notifications of a tenant that arrive
+ * within {@code OUTBOX_DISPATCH_DEBOUNCE_MS} (default 100) start one drain. A failed drain, e.g.
+ * when Kafka is unavailable, is retried with an exponential backoff until the tenant has no
+ * outbox anymore.
+ *
+ * <p>The events are sent with the okapi headers kept with their event logs by the writing
+ * request, the tenant and the Okapi URL of the drain fill in for event logs without them.
+ *
+ * <p>A drain skips the partitions that other drains hold. If it has left event logs without
+ * making progress, it checks them again after 1 second, doubling up to 1 minute, so the event
+ * logs of a drain that stops without finishing them are still sent.
+ *
+ * <p>Notifications sent while the connection is down are lost, so the outboxes of all tenants
+ * are drained whenever the connection has been opened. The {@code _timer} call of
+ * POST /users/outbox/process is a backstop for notifications that no instance has received.
+ */
+public class OutboxDispatcherVerticle extends AbstractVerticle {
+
+  private static final Logger logger = LogManager.getLogger(OutboxDispatcherVerticle.class);
+  private static final String DEBOUNCE_MILLIS_PROPERTY = "OUTBOX_DISPATCH_DEBOUNCE_MS";
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+  private static final long MIN_BACKOFF_MILLIS = 1000;
+  private static final long MAX_BACKOFF_MILLIS = 60000;
+  private static final String TENANT_HEADER = "x-okapi-tenant";
+  private static final String URL_HEADER = "x-okapi-url";
+  private static final String SELECT_OUTBOX_SCHEMAS = "SELECT table_schema FROM information_schema.tables"
+    + " WHERE table_name = 'outbox_event_log' AND right(table_schema, length($1)) = $1";
+  private static final String SELECT_HAS_EVENT_LOGS = "SELECT EXISTS (SELECT 1 FROM \"%s\".outbox_event_log)";
+  private static final String SELECT_HAS_OUTBOX = "SELECT EXISTS (SELECT 1 FROM information_schema.tables"
+    + " WHERE table_name = 'outbox_event_log' AND table_schema = $1)";
+
+  private final PgConnectOptions connectOptions;
+  private final long debounceMillis;
+  private final UserOutboxService userOutboxService;
+  private final Map<String, TenantDrain> drains = new HashMap<>();
+  private PgConnection connection;
+  private boolean stopped;
+
+  public OutboxDispatcherVerticle(PgConnectOptions connectOptions) {
+    this(connectOptions, new UserOutboxService(),
+      Long.parseLong(getPropertyValue(DEBOUNCE_MILLIS_PROPERTY, "100")));
+  }
+
+  OutboxDispatcherVerticle(PgConnectOptions connectOptions, UserOutboxService userOutboxService,
+      long debounceMillis) {
+
+    this.connectOptions = connectOptions;
+    this.userOutboxService = userOutboxService;
+    this.debounceMillis = debounceMillis;
+  }
+
+  @Override
+  public void start(Promise<Void> startPromise) {
+    // the module must start even if the database is not reachable yet
+    listen();
+    startPromise.complete();
+  }
+
+  /**
+   * Also closes the Kafka producers that the drains of this verticle have created on its context.
+   */
+  @Override
+  public void stop(Promise<Void> stopPromise) {
+    stopped = true;
+    Future<Void> producersClosed = KafkaProducerPool.getInstance().close(context);
+    if (connection == null) {
+      producersClosed.onComplete(stopPromise);
+      return;
+    }
+    GenericCompositeFuture.join(List.of(producersClosed, connection.close()))
+      .<Void>mapEmpty()
+      .onComplete(stopPromise);
+  }
+
+  private void listen() {
+    PgConnection.connect(vertx, connectOptions)
+      .compose(conn -> conn.query("LISTEN " + OUTBOX_CHANNEL).execute()
+        .onFailure(e -> conn.close())
+        .map(conn))
+      .onSuccess(conn -> {
+        connection = conn;
+        conn.notificationHandler(notification -> dispatch(notification.getPayload()));
+        conn.closeHandler(v -> {
+          if (!stopped) {
+            logger.warn("listen:: the connection listening on {} has been closed", OUTBOX_CHANNEL);
+            listenLater();
+          }
+        });
+        logger.info("listen:: listening on {}", OUTBOX_CHANNEL);
+        dispatchAll(conn);
+      })
+      .onFailure(e -> {
+        logger.error("listen:: cannot listen on {}", OUTBOX_CHANNEL, e);
+        listenLater();
+      });
+  }
+
+  private void listenLater() {
+    if (!stopped) {
+      vertx.setTimer(RECONNECT_DELAY_MILLIS, id -> listen());
+    }
+  }
+
+  /**
+   * Only the tenants with outbox logs are drained, the outboxes of tenants that are not part of a
+   * consortium are always empty.
+   */
+  private void dispatchAll(PgConnection conn) {
+    String schemaSuffix = "_" + ModuleName.getModuleName();
+    conn.preparedQuery(SELECT_OUTBOX_SCHEMAS).execute(Tuple.of(schemaSuffix))
+      .onSuccess(rows -> {
+        for (Row row : rows) {
+          String schema = row.getString("table_schema");
+          conn.query(String.format(SELECT_HAS_EVENT_LOGS, schema)).execute()
+            .onSuccess(result -> {
+              if (Boolean.TRUE.equals(result.iterator().next().getBoolean(0))) {
+                dispatch(schema.substring(0, schema.length() - schemaSuffix.length()));
+              }
+            })
+            .onFailure(e -> logger.warn("dispatchAll:: cannot read the outbox of {}", schema, e));
+        }
+      })
+      .onFailure(e -> logger.warn("dispatchAll:: cannot read the tenants", e));
+  }
+
+  /**
+   * Drains the outbox of the tenant after the debounce delay, so the notifications of a burst of
+   * writes are coalesced into one drain. At most one drain of a tenant is in flight, a
+   * notification that arrives during a drain, or while waiting for a retry, is handled by one more
+   * drain after it.
+   */
+  void dispatch(String tenantId) {
+    TenantDrain drain = drains.computeIfAbsent(tenantId, key -> new TenantDrain());
+    if (drain.recheckTimerId != null) {
+      // a notification doesn't wait for the check of the partitions held by other drains
+      vertx.cancelTimer(drain.recheckTimerId);
+      drain.recheckTimerId = null;
+      drain.busy = false;
+    }
+    if (drain.busy) {
+      drain.pending = true;
+      return;
+    }
+    drain.busy = true;
+    if (debounceMillis > 0) {
+      vertx.setTimer(debounceMillis, id -> drain(tenantId, drain));
+    } else {
+      drain(tenantId, drain);
+    }
+  }
+
+  private void drain(String tenantId, TenantDrain drain) {
+    if (stopped) {
+      return;
+    }
+    drain.pending = false;
+    drain.recheckTimerId = null;
+    Future<DrainResult> drained;
+    try {
+      drained = userOutboxService.drainOutboxEventLogs(vertx, okapiHeaders(tenantId), UserOutboxService.DRAIN_BUDGET_MILLIS);
+    } catch (Exception e) {
+      drained = Future.failedFuture(e);
+    }
+    drained.onComplete(ar -> {
+      if (ar.failed()) {
+        retry(tenantId, drain, ar.cause());
+        return;
+      }
+      drain.backoffMillis = 0;
+      // a drain that has made progress is continued
+      DrainResult result = ar.result();
+      if (result.processed() > 0 && result.remaining() > 0 || drain.pending) {
+        drain.recheckMillis = 0;
+        drain(tenantId, drain);
+        return;
+      }
+      // the event logs left by a drain without progress are in partitions that other drains
+      // hold, they are checked again in case such a drain stops without finishing them
+      if (result.remaining() > 0) {
+        drain.recheckMillis = nextDelay(drain.recheckMillis);
+        drain.recheckTimerId = vertx.setTimer(drain.recheckMillis, id -> drain(tenantId, drain));
+        return;
+      }
+      drain.recheckMillis = 0;
+      drain.busy = false;
+    });
+  }
+
+  private static long nextDelay(long delayMillis) {
+    return Math.min(Math.max(delayMillis * 2, MIN_BACKOFF_MILLIS), MAX_BACKOFF_MILLIS);
+  }
+
+  /**
+   * Retries a failed drain after the backoff delay, the drain of a tenant that has been disabled
+   * or purged, i.e. whose outbox table is gone, is dropped instead, together with its adapted batch
+   * size.
+   */
+  private void retry(String tenantId, TenantDrain drain, Throwable cause) {
+    hasOutbox(tenantId)
+      .otherwise(e -> {
+        logger.warn("retry:: cannot check the outbox of tenant {}", tenantId, e);
+        return true;
+      })
+      .onSuccess(hasOutbox -> {
+        if (Boolean.FALSE.equals(hasOutbox)) {
+          logger.info("retry:: tenant {} has no outbox anymore, its drain is dropped", tenantId);
+          drains.remove(tenantId);
+          userOutboxService.resetBatchSize(tenantId);
+          return;
+        }
+        drain.backoffMillis = nextDelay(drain.backoffMillis);
+        logger.warn("retry:: draining the outbox of tenant {} has failed, retrying in {} ms",
+          tenantId, drain.backoffMillis, cause);
+        vertx.setTimer(drain.backoffMillis, id -> drain(tenantId, drain));
+      });
+  }
+
+  Future<Boolean> hasOutbox(String tenantId) {
+    if (connection == null) {
+      return Future.failedFuture(new IllegalStateException("not connected to the database"));
+    }
+    return connection.preparedQuery(SELECT_HAS_OUTBOX).execute(Tuple.of(convertToPsqlStandard(tenantId)))
+      .map(rows -> rows.iterator().next().getBoolean(0));
+  }
+
+  private static Map<String, String> okapiHeaders(String tenantId) {
+    KafkaConfig kafkaConfig = KafkaConfigSingleton.INSTANCE.getKafkaConfig();
+    String okapiUrl = kafkaConfig == null ? null : kafkaConfig.getOkapiUrl();
+    if (okapiUrl == null) {
+      return Map.of(TENANT_HEADER, tenantId);
+    }
+    return Map.of(TENANT_HEADER, tenantId, URL_HEADER, okapiUrl);
+  }
+
+  /**
+   * State of the drain of a tenant, only used on the context of the verticle.
+   */
+  private static final class TenantDrain {
+    private boolean busy;
+    private boolean pending;
+    private long backoffMillis;
+    private long recheckMillis;
+    private Long recheckTimerId;
+  }
+}
@@ -0,0 +1,67 @@
+package org.folio.verticle;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.tools.utils.ModuleName;
+import org.folio.service.UserJobService;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Resumes the user jobs that have stopped making progress, e.g. because their module instance went
+ * down. The jobs of all tenants are checked when the module starts and then every
+ * {@value UserJobService#STALE_AFTER_MILLIS} ms, a job is only resumed by one instance.
+ */
+public class UserJobSweepVerticle extends AbstractVerticle {
+
+  private static final Logger logger = LogManager.getLogger(UserJobSweepVerticle.class);
+  private static final String SELECT_JOB_SCHEMAS = "SELECT table_schema FROM information_schema.tables"
+    + " WHERE table_name = 'user_job' AND right(table_schema, length($1)) = $1";
+
+  private final UserJobService userJobService;
+  private long timerId;
+
+  public UserJobSweepVerticle() {
+    this(new UserJobService());
+  }
+
+  UserJobSweepVerticle(UserJobService userJobService) {
+    this.userJobService = userJobService;
+  }
+
+  @Override
+  public void start(Promise<Void> startPromise) {
+    sweep();
+    timerId = vertx.setPeriodic(UserJobService.STALE_AFTER_MILLIS, id -> sweep());
+    startPromise.complete();
+  }
+
+  @Override
+  public void stop(Promise<Void> stopPromise) {
+    vertx.cancelTimer(timerId);
+    stopPromise.complete();
+  }
+
+  private void sweep() {
+    String schemaSuffix = "_" + ModuleName.getModuleName();
+    PostgresClient.getInstance(vertx).execute(SELECT_JOB_SCHEMAS, Tuple.of(schemaSuffix))
+      .onSuccess(rows -> {
+        for (Row row : rows) {
+          String schema = row.getString("table_schema");
+          String tenantId = schema.substring(0, schema.length() - schemaSuffix.length());
+          userJobService.resumeStaleJobs(tenantId, vertx)
+            .onSuccess(count -> {
+              if (count > 0) {
+                logger.info("sweep:: {} stale jobs of tenant {} have been resumed", count, tenantId);
+              }
+            })
+            .onFailure(e -> logger.warn("sweep:: cannot resume the stale jobs of tenant {}", tenantId, e));
+        }
+      })
+      .onFailure(e -> logger.warn("sweep:: cannot read the tenants", e));
+  }
+}
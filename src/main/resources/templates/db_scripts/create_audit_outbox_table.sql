@@ -9,3 +9,6 @@ CREATE TABLE IF NOT EXISTS outbox_event_log (
 CREATE INDEX IF NOT EXISTS outbox_event_log_action_date_idx ON outbox_event_log USING BTREE (action_date);
 
 ALTER TABLE outbox_event_log ADD COLUMN IF NOT EXISTS is_personal_data_changed boolean;
+
+-- the okapi headers of the writing request, e.g. token, user id and request id, sent with the event
+ALTER TABLE outbox_event_log ADD COLUMN IF NOT EXISTS okapi_headers jsonb;
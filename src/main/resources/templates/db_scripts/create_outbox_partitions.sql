@@ -0,0 +1,9 @@
+-- the outbox is dispatched by partitions of the user id, each partition has its own lock;
+-- the 16 partitions, 0 to 15, must match UserEventsLogRepository.PARTITIONS
+INSERT INTO internal_lock(lock_name)
+  SELECT 'user_outbox_' || partition FROM generate_series(0, 15) AS partition
+  ON CONFLICT DO NOTHING;
+
+-- the partition expression of UserEventsLogRepository, an event log without a user id belongs to partition 0
+CREATE INDEX IF NOT EXISTS outbox_event_log_partition_idx
+  ON outbox_event_log USING BTREE ((coalesce(hashtext(payload->>'id'), 0) & 15), action_date);
@@ -0,0 +1,65 @@
+package org.folio.event.service;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map;
+
+import org.folio.kafka.KafkaConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+
+@ExtendWith(VertxExtension.class)
+class KafkaProducerPoolTests {
+  private static final KafkaConfig KAFKA_CONFIG = KafkaConfig.builder()
+    .envId("folio")
+    .kafkaHost("localhost")
+    .kafkaPort("9092")
+    .build();
+
+  @Test
+  void keepsProducersOfContextUntilClosed(Vertx vertx, VertxTestContext context) {
+    var pool = new KafkaProducerPool(Map.of("linger.ms", "5"));
+    Context verticleContext = vertx.getOrCreateContext();
+    Context otherContext = vertx.getOrCreateContext();
+
+    verticleContext.runOnContext(v -> context.verify(() -> {
+      var created = pool.getProducer(verticleContext, KAFKA_CONFIG, "USER_CREATED");
+      assertThat(pool.getProducer(verticleContext, KAFKA_CONFIG, "USER_CREATED"), is(sameInstance(created)));
+      assertThat(pool.getProducer(verticleContext, KAFKA_CONFIG, "USER_DELETED"), is(not(sameInstance(created))));
+      otherContext.runOnContext(v2 -> context.verify(() -> {
+        var other = pool.getProducer(otherContext, KAFKA_CONFIG, "USER_CREATED");
+        assertThat(other, is(not(sameInstance(created))));
+        assertThat(pool.getOpenProducers(), is(3L));
+
+        pool.close(verticleContext)
+          .onComplete(context.succeeding(x -> context.verify(() -> {
+            // the producer of the other context is still used
+            assertThat(pool.getOpenProducers(), is(1L));
+            assertThat(pool.getProducer(otherContext, KAFKA_CONFIG, "USER_CREATED"), is(sameInstance(other)));
+            pool.close(otherContext).onComplete(context.succeedingThenComplete());
+          })));
+      }));
+    }));
+  }
+
+  @Test
+  void failsWithoutContext() {
+    var pool = new KafkaProducerPool(Map.of());
+
+    var sent = pool.send(null, KAFKA_CONFIG, "USER_CREATED", KafkaProducerRecord.create("topic", "key", "value"));
+
+    assertThat(sent.failed(), is(true));
+    assertThat(sent.cause(), is(instanceOf(IllegalStateException.class)));
+    assertThat(pool.getOpenProducers(), is(0L));
+  }
+}
@@ -0,0 +1,70 @@
+package org.folio.event.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map;
+
+import org.folio.rest.jaxrs.model.OutboxEventLog;
+import org.junit.jupiter.api.Test;
+
+class UserOutboxServiceTests {
+
+  @Test
+  void doublesBatchSizeWhenFullBatchIsAcknowledgedInTime() {
+    var service = new UserOutboxService();
+    String tenant = "double";
+    service.adaptBatchSize(tenant, 1000, 1000, 200, true);
+    assertThat(service.getBatchSize(tenant), is(2000));
+    service.adaptBatchSize(tenant, 4000, 4000, 200, true);
+    assertThat(service.getBatchSize(tenant), is(5000));
+  }
+
+  @Test
+  void keepsBatchSizeOfPartialBatch() {
+    var service = new UserOutboxService();
+    String tenant = "partial";
+    service.adaptBatchSize(tenant, 1000, 10, 200, true);
+    assertThat(service.getBatchSize(tenant), is(1000));
+  }
+
+  @Test
+  void halvesBatchSizeWhenAcknowledgementIsSlowOrFails() {
+    var service = new UserOutboxService();
+    String tenant = "halve";
+    service.adaptBatchSize(tenant, 1000, 1000, 5000, true);
+    assertThat(service.getBatchSize(tenant), is(500));
+    service.adaptBatchSize(tenant, 500, 500, 10, false);
+    assertThat(service.getBatchSize(tenant), is(250));
+    service.adaptBatchSize(tenant, 60, 60, 10, false);
+    assertThat(service.getBatchSize(tenant), is(50));
+  }
+
+  @Test
+  void resetsBatchSizeOfDroppedTenant() {
+    var service = new UserOutboxService();
+    String tenant = "reset";
+    service.adaptBatchSize(tenant, 1000, 1000, 5000, true);
+    service.resetBatchSize(tenant);
+    assertThat(service.getBatchSize(tenant), is(1000));
+  }
+
+  @Test
+  void keepsOkapiHeadersOfWritingRequest() {
+    String headers = UserOutboxService.propagatedHeaders(Map.of(
+      "X-Okapi-Tenant", "diku", "X-Okapi-Token", "token", "x-okapi-user-id", "user", "Content-Type", "application/json"));
+
+    var eventHeaders = UserOutboxService.eventHeaders(new OutboxEventLog().withOkapiHeaders(headers),
+      Map.of("x-okapi-tenant", "diku", "x-okapi-url", "http://okapi:9130"));
+
+    assertThat(eventHeaders, is(Map.of("x-okapi-tenant", "diku", "x-okapi-token", "token",
+      "x-okapi-user-id", "user", "x-okapi-url", "http://okapi:9130")));
+  }
+
+  @Test
+  void sendsEventLogWithoutOkapiHeadersWithHeadersOfDrain() {
+    var drainHeaders = Map.of("x-okapi-tenant", "diku", "x-okapi-url", "http://okapi:9130");
+
+    assertThat(UserOutboxService.eventHeaders(new OutboxEventLog(), drainHeaders), is(drainHeaders));
+  }
+}
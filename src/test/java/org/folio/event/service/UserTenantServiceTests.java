@@ -0,0 +1,75 @@
+package org.folio.event.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.folio.repository.UserTenantRepository;
+import org.folio.rest.RestVerticle;
+import org.folio.rest.jaxrs.model.UserTenant;
+import org.folio.rest.jaxrs.model.UserTenantCollection;
+import org.folio.rest.persist.Conn;
+import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.persist.PostgresClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+class UserTenantServiceTests {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void loadsCentralTenantIdOnceOnPooledConnection(Vertx vertx, VertxTestContext testContext) {
+    var tenantId = "tenant_" + UUID.randomUUID().toString().replace("-", "");
+    var postgresClient = mock(PostgresClient.class);
+    var pooledConn = mock(Conn.class);
+    var repository = mock(UserTenantRepository.class);
+    var userTenants = new UserTenantCollection()
+      .withUserTenants(List.of(new UserTenant().withCentralTenantId("central")))
+      .withTotalRecords(1);
+
+    when(postgresClient.withConn(any())).thenAnswer(invocation ->
+      invocation.<Function<Conn, Future<UserTenantCollection>>>getArgument(0).apply(pooledConn));
+    when(repository.fetchUserTenants(eq(pooledConn), eq(tenantId), any(Criterion.class)))
+      .thenReturn(Future.succeededFuture(userTenants));
+    var service = new UserTenantService((v, tenant) -> postgresClient, repository);
+    Map<String, String> okapiHeaders = Map.of(RestVerticle.OKAPI_HEADER_TENANT, tenantId);
+
+    vertx.runOnContext(v -> service.getConsortiaCentralTenantId(okapiHeaders)
+      .compose(centralTenantId -> service.isConsortiaTenant(okapiHeaders)
+        .map(isConsortiaTenant -> {
+          assertThat(centralTenantId, is("central"));
+          assertThat(isConsortiaTenant, is(true));
+          return null;
+        }))
+      .onComplete(testContext.succeeding(x -> testContext.verify(() -> {
+        verify(repository, times(1)).fetchUserTenants(eq(pooledConn), eq(tenantId), any(Criterion.class));
+        testContext.completeNow();
+      }))));
+  }
+
+  @Test
+  void failsWithoutVertxContext() {
+    var service = new UserTenantService((v, tenant) -> mock(PostgresClient.class), mock(UserTenantRepository.class));
+    Map<String, String> okapiHeaders = Map.of(RestVerticle.OKAPI_HEADER_TENANT, "tenant_without_context");
+
+    var centralTenantId = service.getConsortiaCentralTenantId(okapiHeaders);
+
+    assertThat(centralTenantId.failed(), is(true));
+  }
+}
@@ -129,6 +129,11 @@ public abstract class AbstractRestTest {
   }
 
   public List<String> checkKafkaEventSent(String tenant, String eventType) {
+    return getKafkaEvents(tenant, eventType).stream()
+        .map(ConsumerRecord::value).collect(Collectors.toList());
+  }
+
+  public List<ConsumerRecord<String, String>> getKafkaEvents(String tenant, String eventType) {
     Properties consumerProperties = new Properties();
     consumerProperties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaContainer.getBootstrapServers());
     consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
@@ -142,8 +147,7 @@ public abstract class AbstractRestTest {
       kafkaConsumer.subscribe(Collections.singletonList(formatToKafkaTopicName(tenant, eventType)));
       records = kafkaConsumer.poll(Duration.ofMillis(3000));
     }
-    return IteratorUtils.toList(records.iterator()).stream()
-        .map(ConsumerRecord::value).collect(Collectors.toList());
+    return IteratorUtils.toList(records.iterator());
   }
 
   private static KafkaProducer<String, String> createKafkaProducer() {
@@ -3,8 +3,14 @@ package org.folio.moduserstest;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgConnection;
+import lombok.SneakyThrows;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.folio.repository.UserEventsLogRepository;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.OutboxEventLog;
@@ -18,14 +24,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.folio.event.UserEventType.USER_CREATED;
+import static org.folio.event.UserEventType.USER_DELETED;
+import static org.folio.repository.UserEventsLogRepository.OUTBOX_CHANNEL;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -69,6 +79,98 @@ public class UserOutboxProcessIT extends AbstractRestTestNoData {
     assertTrue(log.getBoolean("isPersonalDataChanged"));
   }
 
+  @Test
+  @SneakyThrows
+  void shouldSendUserEventWithHeadersOfWritingRequest(Vertx vertx) {
+    String userId = UUID.randomUUID().toString();
+    OutboxEventLog log = deleteEventLog()
+      .withPayload(Json.encode(new User().withId(userId)))
+      .withOkapiHeaders(new JsonObject()
+        .put("x-okapi-tenant", TENANT_NAME)
+        .put("x-okapi-token", "writer-token")
+        .put("x-okapi-user-id", "writer-user-id")
+        .put("x-okapi-request-id", "writer-request-id")
+        .encode());
+    PostgresClient.getInstance(vertx, TENANT_NAME)
+      .withConn(conn -> userEventsLogRepository.saveEventLog(conn, log, TENANT_NAME))
+      .toCompletionStage().toCompletableFuture().get(5, SECONDS);
+
+    timerInterfaceClient.attemptToTriggerUsersOutboxProcess(TENANT_NAME)
+      .statusCode(is(HTTP_OK));
+    ConsumerRecord<String, String> event = getKafkaEvents(TENANT_NAME, USER_DELETED.getTopicName()).stream()
+      .filter(record -> record.value().contains(userId))
+      .findFirst()
+      .orElseThrow();
+    assertEquals("writer-token", header(event, "x-okapi-token"));
+    assertEquals("writer-user-id", header(event, "x-okapi-user-id"));
+    assertEquals("writer-request-id", header(event, "x-okapi-request-id"));
+  }
+
+  @Test
+  void shouldSaveEventLogsInBatch(Vertx vertx, VertxTestContext context) {
+    List<OutboxEventLog> logs = List.of(deleteEventLog(), deleteEventLog(), deleteEventLog());
+    List<String> eventIds = logs.stream().map(OutboxEventLog::getEventId).toList();
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, TENANT_NAME);
+
+    postgresClient.withTrans(conn -> userEventsLogRepository.saveEventLogs(conn, logs, TENANT_NAME)
+        .compose(savedCount -> userEventsLogRepository.deleteBatch(conn, eventIds, TENANT_NAME)
+          .map(deletedCount -> List.of(savedCount, deletedCount))))
+      .onComplete(context.succeeding(counts -> context.verify(() -> {
+        assertEquals(List.of(3, 3), counts);
+        context.completeNow();
+      })));
+  }
+
+  @Test
+  void shouldFetchEventLogsOfAllPartitions(Vertx vertx, VertxTestContext context) {
+    OutboxEventLog withoutUserId = deleteEventLog()
+      .withPayload(Json.encode(new User().withMetadata(new Metadata())));
+    List<OutboxEventLog> logs = List.of(deleteEventLog(), deleteEventLog(), deleteEventLog(),
+      deleteEventLog(), withoutUserId);
+    List<String> eventIds = logs.stream().map(OutboxEventLog::getEventId).toList();
+    List<Integer> allPartitions = IntStream.range(0, UserEventsLogRepository.PARTITIONS).boxed().toList();
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, TENANT_NAME);
+
+    postgresClient.withTrans(conn -> userEventsLogRepository.saveEventLogs(conn, logs, TENANT_NAME)
+        .compose(savedCount -> userEventsLogRepository.fetchPartitions(conn, TENANT_NAME))
+        .compose(partitions -> userEventsLogRepository.fetchEventLogs(conn, TENANT_NAME, allPartitions, 100)
+          .compose(fetched -> userEventsLogRepository.deleteBatch(conn, eventIds, TENANT_NAME)
+            .map(deletedCount -> {
+              context.verify(() -> {
+                assertTrue(partitions.stream().allMatch(partition -> partition != null
+                  && partition >= 0 && partition < UserEventsLogRepository.PARTITIONS));
+                assertTrue(fetched.stream().map(OutboxEventLog::getEventId).toList().containsAll(eventIds));
+              });
+              return deletedCount;
+            }))))
+      .onComplete(context.succeeding(deletedCount -> context.verify(() -> {
+        assertEquals(5, deletedCount);
+        context.completeNow();
+      })));
+  }
+
+  @Test
+  void shouldNotifyTheDispatcherWhenEventLogsAreSaved(Vertx vertx, VertxTestContext context) {
+    OutboxEventLog log = deleteEventLog();
+    List<OutboxEventLog> logs = List.of(deleteEventLog(), deleteEventLog());
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, TENANT_NAME);
+    // one notification per transaction, the event logs are deleted before the dispatcher reads them
+    Checkpoint notified = context.checkpoint(2);
+
+    PgConnection.connect(vertx, connectOptions(vertx))
+      .compose(listener -> listener.query("LISTEN " + OUTBOX_CHANNEL).execute().map(listener))
+      .onSuccess(listener -> listener.notificationHandler(notification -> context.verify(() -> {
+        assertEquals(TENANT_NAME, notification.getPayload());
+        notified.flag();
+      })))
+      .compose(listener -> postgresClient.withTrans(conn -> userEventsLogRepository.saveEventLog(conn, log, TENANT_NAME)
+        .compose(saved -> userEventsLogRepository.deleteBatch(conn, List.of(log.getEventId()), TENANT_NAME))))
+      .compose(deletedCount -> postgresClient.withTrans(conn -> userEventsLogRepository.saveEventLogs(conn, logs, TENANT_NAME)
+        .compose(savedCount -> userEventsLogRepository.deleteBatch(conn,
+          logs.stream().map(OutboxEventLog::getEventId).toList(), TENANT_NAME))))
+      .onFailure(context::failNow);
+  }
+
   @Test
   void shouldFailAfterTriggerUsingNonExistsTenant() {
     timerInterfaceClient.attemptToTriggerUsersOutboxProcess("non-exist")
@@ -77,4 +179,28 @@ public class UserOutboxProcessIT extends AbstractRestTestNoData {
     assertEquals(0, list.size());
   }
 
+  private static String header(ConsumerRecord<String, String> event, String name) {
+    Header header = event.headers().lastHeader(name);
+    return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  private static PgConnectOptions connectOptions(Vertx vertx) {
+    JsonObject config = PostgresClient.getInstance(vertx).getConnectionConfig();
+    return new PgConnectOptions()
+      .setHost(config.getString("host"))
+      .setPort(Integer.parseInt(String.valueOf(config.getValue("port", 5432))))
+      .setUser(config.getString("username"))
+      .setPassword(config.getString("password"))
+      .setDatabase(config.getString("database"));
+  }
+
+  private static OutboxEventLog deleteEventLog() {
+    return new OutboxEventLog()
+      .withEventId(UUID.randomUUID().toString())
+      .withAction(UserEvent.Action.DELETE.value())
+      .withActionDate(new Date())
+      .withEntityType(OutboxEventLog.EntityType.USER)
+      .withPayload(Json.encode(new User().withId(UUID.randomUUID().toString())))
+      .withIsPersonalDataChanged(false);
+  }
 }
@@ -12,7 +12,9 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 
 import org.apache.commons.lang3.RandomStringUtils;
@@ -21,7 +23,9 @@ import org.folio.moduserstest.AbstractRestTestNoData;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Stream;
 import io.vertx.core.Vertx;
@@ -33,6 +37,7 @@ import org.folio.support.AddressType;
 import org.folio.support.Personal;
 import org.folio.support.TagList;
 import org.folio.support.User;
+import org.folio.support.Users;
 import org.folio.support.ValidationErrors;
 import org.folio.support.http.AddressTypesClient;
 import org.folio.support.http.ConfigurationClient;
@@ -230,6 +235,50 @@ class UsersAPIIT extends AbstractRestTestNoData {
       is("User with this id already exists"));
   }
 
+  @Test
+  void canCreateAndUpdateUsersInBatch() {
+    final var existingUser = usersClient.createUser("julia");
+    final var newUserId = UUID.randomUUID().toString();
+
+    usersClient.attemptToSaveUsersBatch(List.of(
+        User.builder().id(existingUser.getId()).username("julia").barcode("12345").build(),
+        User.builder().id(newUserId).username("steve").build(),
+        User.builder().username("Julia").build()))
+      .statusCode(is(HTTP_OK))
+      .body("totalRecords", is(3))
+      .body("results.status", contains("updated", "created", "failed"))
+      .body("results[2].errorMessage", is("User with this username already exists"));
+
+    assertThat(usersClient.getUser(existingUser.getId()).getBarcode(), is("12345"));
+    assertThat(usersClient.getUser(newUserId).getUsername(), is("steve"));
+    assertThat(usersClient.getAllUsers().getTotalRecords(), is(2));
+  }
+
+  @Test
+  void cannotSaveUsersInBatchWithUsernamesDifferingInAccentsOnly() {
+    usersClient.attemptToSaveUsersBatch(List.of(
+        User.builder().username("José").barcode("Ångström").build(),
+        User.builder().username("jose").build(),
+        User.builder().username("maria").barcode("angstrom").build()))
+      .statusCode(is(HTTP_OK))
+      .body("results.status", contains("created", "failed", "failed"))
+      .body("results[1].errorMessage", is("User with this username already exists"))
+      .body("results[2].errorMessage", is("This barcode has already been taken"));
+
+    assertThat(usersClient.getAllUsers().getTotalRecords(), is(1));
+  }
+
+  @Test
+  void cannotSaveUsersInBatchWithUnknownPatronGroup() {
+    usersClient.attemptToSaveUsersBatch(List.of(
+        User.builder().username("julia").patronGroup(UUID.randomUUID().toString()).build()))
+      .statusCode(is(HTTP_OK))
+      .body("results[0].status", is("failed"))
+      .body("results[0].errorMessage", containsString("Patron group not found"));
+
+    assertThat(usersClient.getAllUsers().getTotalRecords(), is(0));
+  }
+
   static Stream<Arguments> dateOfBirth() {
     return Stream.of(
         Arguments.of("0000-01-01", false),
@@ -323,6 +372,152 @@ class UsersAPIIT extends AbstractRestTestNoData {
       });
   }
 
+  @Test
+  void canGetAUserOnlyWhenItHasChanged() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .build());
+
+    final var etag = usersClient.attemptToGetUserIfNoneMatch(user.getId(), "\"0\"")
+      .statusCode(is(200))
+      .extract().header("ETag");
+
+    usersClient.attemptToGetUserIfNoneMatch(user.getId(), etag)
+      .statusCode(is(304));
+
+    usersClient.updateUser(User.builder()
+      .id(user.getId())
+      .username("julia-brockhurst")
+      .build());
+
+    usersClient.attemptToGetUserIfNoneMatch(user.getId(), etag)
+      .statusCode(is(200));
+  }
+
+  @Test
+  void canUpdateAUserWithoutChanges() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .active(true)
+      .build());
+    final var storedUser = usersClient.getUser(user.getId());
+
+    usersClient.attemptToUpdateUser(storedUser)
+      .statusCode(is(204))
+      .header("X-Unchanged", is("true"));
+
+    assertThat(usersClient.getUser(user.getId()).getVersion(), is(storedUser.getVersion()));
+  }
+
+  @Test
+  void canUpdateAUserWithTheCurrentVersion() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .build());
+    final var version = usersClient.getUser(user.getId()).getVersion();
+
+    usersClient.attemptToUpdateUserIfMatch(User.builder()
+        .id(user.getId())
+        .username("julia-brockhurst")
+        .build(), "\"" + version + "\"")
+      .statusCode(is(204));
+
+    final var updatedUser = usersClient.getUser(user.getId());
+    assertThat(updatedUser.getUsername(), is("julia-brockhurst"));
+    assertThat(updatedUser.getVersion(), is(version + 1));
+  }
+
+  @Test
+  @SneakyThrows
+  void canUpdateAUserWithoutVersionWithVersionZero() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .build());
+    // users written before the version trigger was added have no _version
+    final var table = TENANT_NAME + "_mod_users.users";
+    final var postgresClient = PostgresClient.getInstance(Vertx.vertx());
+    postgresClient.execute("ALTER TABLE " + table + " DISABLE TRIGGER USER")
+      .compose(x -> postgresClient.execute("UPDATE " + table + " SET jsonb = jsonb - '_version'"
+        + " WHERE id = '" + user.getId() + "'"))
+      .compose(x -> postgresClient.execute("ALTER TABLE " + table + " ENABLE TRIGGER USER"))
+      .toCompletionStage().toCompletableFuture().get(5, SECONDS);
+
+    usersClient.attemptToUpdateUserIfMatch(User.builder()
+        .id(user.getId())
+        .username("julia-brockhurst")
+        .build(), "0")
+      .statusCode(is(204));
+
+    assertThat(usersClient.getUser(user.getId()).getUsername(), is("julia-brockhurst"));
+  }
+
+  @Test
+  void cannotUpdateAUserWithAStaleVersion() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .build());
+    final var version = usersClient.getUser(user.getId()).getVersion();
+
+    usersClient.updateUser(User.builder()
+      .id(user.getId())
+      .username("julia-brockhurst")
+      .build());
+
+    usersClient.attemptToUpdateUserIfMatch(User.builder()
+        .id(user.getId())
+        .username("julia-smith")
+        .build(), String.valueOf(version))
+      .statusCode(is(409));
+
+    assertThat(usersClient.getUser(user.getId()).getUsername(), is("julia-brockhurst"));
+  }
+
+  @Test
+  void canPatchAUser() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .active(true)
+      .personal(Personal.builder()
+        .lastName("brockhurst")
+        .email("julia@example.com")
+        .build())
+      .build());
+
+    usersClient.attemptToPatchUser(user.getId(), Map.of(
+        "active", false,
+        "personal", Map.of("email", "julia.brockhurst@example.com")))
+      .statusCode(is(204));
+
+    final var patchedUser = usersClient.getUser(user.getId());
+    assertThat(patchedUser.getUsername(), is("julia"));
+    assertThat(patchedUser.getActive(), is(false));
+    assertThat(patchedUser.getPersonal().getLastName(), is("brockhurst"));
+    assertThat(patchedUser.getPersonal().getEmail(), is("julia.brockhurst@example.com"));
+  }
+
+  @Test
+  void cannotPatchAUserIntoAnInvalidUser() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .personal(Personal.builder()
+        .lastName("brockhurst")
+        .build())
+      .build());
+
+    usersClient.attemptToPatchUser(user.getId(), Map.of(
+        "personal", Collections.singletonMap("lastName", null)))
+      .statusCode(is(422))
+      .body("errors[0].parameters[0].key", is("personal.lastName"));
+
+    assertThat(usersClient.getUser(user.getId()).getPersonal().getLastName(), is("brockhurst"));
+  }
+
+  @Test
+  void cannotPatchAUserThatDoesNotExist() {
+    usersClient.attemptToPatchUser(UUID.randomUUID().toString(), Map.of("active", false))
+      .statusCode(is(404));
+  }
+
   @Test
   void canNotUpdateAUser() {
     final var user = usersClient.createUser(User.builder()
@@ -505,6 +700,58 @@ class UsersAPIIT extends AbstractRestTestNoData {
     assertThat(foundUsers.getFirstUser().getId(), is(steve.getId()));
   }
 
+  @Test
+  void canGetUsersByIdsInRequestOrder() {
+    final var steve = usersClient.createUser("steve");
+    final var joanne = usersClient.createUser("joanne");
+    usersClient.createUser("julia");
+
+    final var foundUsers = usersClient.getUsersByIds(List.of(joanne.getId(),
+      UUID.randomUUID().toString(), steve.getId(), joanne.getId()));
+
+    assertThat(foundUsers.getTotalRecords(), is(2));
+    assertThat(foundUsers.getUsers().stream().map(User::getUsername).toList(),
+      contains("joanne", "steve"));
+  }
+
+  @Test
+  void canResolveIdentifierToUser() {
+    final var steve = usersClient.createUser(User.builder()
+      .username("steve")
+      .barcode("12345")
+      .externalSystemId("ext-steve")
+      .build());
+
+    usersClient.attemptToResolveIdentifier("12345")
+      .statusCode(is(HTTP_OK))
+      .body("matchedField", is("barcode"))
+      .body("user.id", is(steve.getId()));
+
+    usersClient.attemptToResolveIdentifier("STEVE")
+      .statusCode(is(HTTP_OK))
+      .body("matchedField", is("username"))
+      .body("user.id", is(steve.getId()));
+
+    usersClient.attemptToResolveIdentifier("ext-steve")
+      .statusCode(is(HTTP_OK))
+      .body("matchedField", is("externalSystemId"));
+
+    usersClient.attemptToResolveIdentifier("unknown")
+      .statusCode(is(HTTP_NOT_FOUND));
+  }
+
+  @Test
+  void canSearchForUsersWithoutMatches() {
+    usersClient.createUser(User.builder()
+      .username("steve")
+      .build());
+
+    final var foundUsers = usersClient.getUsers("username==nobody");
+
+    assertThat(foundUsers.getUsers().size(), is(0));
+    assertThat(foundUsers.getTotalRecords(), is(0));
+  }
+
   @Test
   void cannotSearchUsingInvalidCQL() {
     usersClient.attemptToGetUsers("username==")
@@ -534,6 +781,93 @@ class UsersAPIIT extends AbstractRestTestNoData {
     assertThat(activeUsers.getTotalRecords(), is(2));
   }
 
+  @Test
+  void canPageThroughUsersWithCursor() {
+    final var ids = Stream.of("amy", "bob", "carl", "dora", "ed")
+      .map(username -> usersClient.createUser(username).getId())
+      .sorted()
+      .toList();
+
+    final var firstPage = usersClient.attemptToGetUsersPage("cql.allRecords=1", "*", 2)
+      .statusCode(is(HTTP_OK))
+      .extract().as(Users.class);
+    final var secondPage = usersClient.attemptToGetUsersPage("cql.allRecords=1", firstPage.getNextCursor(), 2)
+      .statusCode(is(HTTP_OK))
+      .extract().as(Users.class);
+    final var lastPage = usersClient.attemptToGetUsersPage("cql.allRecords=1", secondPage.getNextCursor(), 2)
+      .statusCode(is(HTTP_OK))
+      .extract().as(Users.class);
+
+    assertThat(firstPage.getUsers().stream().map(User::getId).toList(), is(ids.subList(0, 2)));
+    assertThat(secondPage.getUsers().stream().map(User::getId).toList(), is(ids.subList(2, 4)));
+    assertThat(lastPage.getUsers().stream().map(User::getId).toList(), is(ids.subList(4, 5)));
+    assertThat(lastPage.getNextCursor(), is(nullValue()));
+  }
+
+  @Test
+  void canChooseHowTotalRecordsIsCalculated() {
+    usersClient.createUser(User.builder().username("julia").active(true).build());
+    usersClient.createUser(User.builder().username("steve").active(true).build());
+    usersClient.createUser(User.builder().username("jenna").active(false).build());
+
+    final var exact = usersClient.getUsers("active=true", "exact");
+    final var estimated = usersClient.getUsers("active=true", "estimated");
+
+    assertThat(exact.getUsers().size(), is(2));
+    assertThat(exact.getTotalRecords(), is(2));
+    assertThat(estimated.getUsers().size(), is(2));
+    usersClient.attemptToGetUsers("active=true", "none")
+      .statusCode(is(HTTP_OK))
+      .body("users.size()", is(2))
+      .body("totalRecords", nullValue())
+      .body("resultInfo.totalRecords", nullValue());
+  }
+
+  @Test
+  void canGetOnlyRequestedFieldsOfUsers() {
+    final var user = usersClient.createUser(User.builder()
+      .username("julia")
+      .barcode("1234567")
+      .active(true)
+      .personal(Personal.builder()
+        .firstName("julia")
+        .lastName("brockhurst")
+        .build())
+      .build());
+
+    usersClient.attemptToGetUsersWithFields("username=julia", "barcode,personal.lastName")
+      .statusCode(is(HTTP_OK))
+      .body("users[0].id", is(user.getId()))
+      .body("users[0].barcode", is("1234567"))
+      .body("users[0].personal.lastName", is("brockhurst"))
+      .body("users[0].personal.firstName", nullValue())
+      .body("users[0].username", nullValue())
+      .body("users[0].active", nullValue());
+  }
+
+  @Test
+  void cannotGetUsersWithInvalidFields() {
+    usersClient.attemptToGetUsersWithFields("cql.allRecords=1", "personal..lastName")
+      .statusCode(is(HTTP_BAD_REQUEST));
+  }
+
+  @Test
+  void cannotCombineCursorWithSortBy() {
+    usersClient.attemptToGetUsersPage("cql.allRecords=1 sortBy username", "*", 2)
+      .statusCode(is(HTTP_BAD_REQUEST));
+  }
+
+  @Test
+  void canPageWithCursorThroughUsersMatchingSortByTerm() {
+    final var user = usersClient.createUser("sortBy");
+
+    final var page = usersClient.attemptToGetUsersPage("username==\"sortBy\"", "*", 2)
+      .statusCode(is(HTTP_OK))
+      .extract().as(Users.class);
+
+    assertThat(page.getUsers().stream().map(User::getId).toList(), is(List.of(user.getId())));
+  }
+
   @Test
   void canDeleteAUser() {
     String userId = UUID.randomUUID().toString();
@@ -556,6 +890,72 @@ class UsersAPIIT extends AbstractRestTestNoData {
       .statusCode(404);
   }
 
+  @Test
+  void canDeleteUsersUsingAJob() {
+    final var user1 = createUser("1234");
+    final var user2 = createUser("201");
+    final var user3 = createUser("1999");
+
+    final String jobId = usersClient.attemptToSubmitJob(Map.of("type", "delete", "query", "username==1*"))
+      .statusCode(is(202))
+      .body("status", is("pending"))
+      .extract().path("id");
+
+    Awaitility.await()
+      .atMost(1, MINUTES)
+      .pollInterval(1, SECONDS)
+      .untilAsserted(() -> usersClient.attemptToGetJob(jobId)
+        .statusCode(is(HTTP_OK))
+        .body("status", is("completed"))
+        .body("processedRecords", is(2)));
+
+    usersClient.attemptToGetUser(user1.getId()).statusCode(404);
+    usersClient.attemptToGetUser(user2.getId()).statusCode(200);
+    usersClient.attemptToGetUser(user3.getId()).statusCode(404);
+  }
+
+  @Test
+  void canUpdateUsersUsingAJob() {
+    final var user1 = usersClient.createUser(User.builder().username("1234").active(true).build());
+    final var user2 = usersClient.createUser(User.builder().username("201").active(true).build());
+
+    final String jobId = usersClient.attemptToSubmitJob(Map.of("type", "update", "query", "username==1*",
+        "patch", Map.of("active", false)))
+      .statusCode(is(202))
+      .extract().path("id");
+
+    Awaitility.await()
+      .atMost(1, MINUTES)
+      .pollInterval(1, SECONDS)
+      .untilAsserted(() -> usersClient.attemptToGetJob(jobId)
+        .statusCode(is(HTTP_OK))
+        .body("status", is("completed"))
+        .body("processedRecords", is(1)));
+
+    assertThat(usersClient.getUser(user1.getId()).getActive(), is(false));
+    assertThat(usersClient.getUser(user1.getId()).getUsername(), is("1234"));
+    assertThat(usersClient.getUser(user2.getId()).getActive(), is(true));
+  }
+
+  @Test
+  void cannotSubmitUpdateJobWithUnknownPatronGroup() {
+    usersClient.attemptToSubmitJob(Map.of("type", "update", "query", "active==true",
+        "patch", Map.of("patronGroup", UUID.randomUUID().toString())))
+      .statusCode(is(HTTP_BAD_REQUEST));
+    usersClient.attemptToSubmitJob(Map.of("type", "update", "query", "active==true", "patch", Map.of()))
+      .statusCode(is(HTTP_BAD_REQUEST));
+  }
+
+  @Test
+  void cannotSubmitJobWithInvalidQuery() {
+    usersClient.attemptToSubmitJob(Map.of("type", "delete", "query", "username=="))
+      .statusCode(is(HTTP_BAD_REQUEST));
+    usersClient.attemptToSubmitJob(Map.of("type", "delete", "query", "username==1* sortBy username"))
+      .statusCode(is(HTTP_BAD_REQUEST));
+    usersClient.attemptToGetJob(UUID.randomUUID().toString())
+      .statusCode(is(HTTP_NOT_FOUND));
+  }
+
   @Test
   void cannotDeleteAUserThatDoesNotExist() {
     // Define another user to make sure it isn't deleted by accident
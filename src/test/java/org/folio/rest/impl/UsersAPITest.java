@@ -2,6 +2,7 @@ package org.folio.rest.impl;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -82,9 +83,17 @@ class UsersAPITest {
     assertThat(response(null, e), startsWith("500 bee"));
   }
 
+  @Test
+  void parseVersion() {
+    assertThat(UsersAPI.parseVersion("3"), is(3));
+    assertThat(UsersAPI.parseVersion("\"4\""), is(4));
+    assertThat(UsersAPI.parseVersion(" W/\"5\""), is(5));
+    assertThat(UsersAPI.parseVersion("*"), is(nullValue()));
+  }
+
   @Test
   void getUsersExceptionInCatch(VertxTestContext vtc) {
-    new UsersAPI().getUsers(null, null, null, 0, 0, null, null, null,
+    new UsersAPI().getUsers(null, null, null, null, null, null, 0, 0, null, null, null,
         vtc.succeeding(response -> vtc.verify( () -> {
           assertThat(response.getStatus(), is(500));
           vtc.completeNow();
@@ -100,6 +109,15 @@ class UsersAPITest {
         })), null);
   }
 
+  @Test
+  void postUsersBatchException(VertxTestContext vtc) {
+    new UsersAPI().postUsersBatch(null, null,
+        vtc.succeeding(response -> vtc.verify( () -> {
+          assertThat(response.getStatus(), is(500));
+          vtc.completeNow();
+        })), null);
+  }
+
   @Test
   void postUsersRemoveCustomFieldIfEmptyString(VertxTestContext vtc) {
     Map<String,String> okapiHeaders = new HashMap<>();
@@ -233,6 +251,7 @@ class UsersAPITest {
 
     final var postgresClient = mock(PostgresClient.class);
 
+    when(postgresClient.getTenantId()).thenReturn("users_api_test");
     when(postgresClient.get(anyString(), any(), any(Criterion.class), anyBoolean()))
       .thenReturn(result);
 
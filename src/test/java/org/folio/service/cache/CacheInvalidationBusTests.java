@@ -0,0 +1,74 @@
+package org.folio.service.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.folio.rest.jaxrs.model.Usergroup;
+import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.persist.interfaces.Results;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.PgNotification;
+
+class CacheInvalidationBusTests {
+  private final CacheInvalidationBus bus = new CacheInvalidationBus("this-instance");
+
+  @Test
+  void evictsPatronGroupsWrittenByAnotherInstance() {
+    var tenantId = "tenant_" + UUID.randomUUID().toString().replace("-", "");
+    var postgresClient = patronGroupsClient(tenantId);
+
+    ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+    bus.onNotification(notification("this-instance", tenantId, "GROUP"));
+    ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+    verify(postgresClient, times(1)).get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean());
+
+    bus.onNotification(notification("other-instance", tenantId, "GROUP"));
+    ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+    verify(postgresClient, times(2)).get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean());
+  }
+
+  @Test
+  void ignoresUnknownNotifications() {
+    var tenantId = "tenant_" + UUID.randomUUID().toString().replace("-", "");
+    var postgresClient = patronGroupsClient(tenantId);
+
+    ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+    bus.onNotification(notification("other-instance", tenantId, "UNKNOWN"));
+    bus.onNotification(new PgNotification().setChannel(CacheInvalidationBus.CHANNEL).setPayload("not json"));
+    ReferenceDataCache.getInstance().getPatronGroupIds(postgresClient);
+
+    verify(postgresClient, times(1)).get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean());
+  }
+
+  private static PostgresClient patronGroupsClient(String tenantId) {
+    var postgresClient = mock(PostgresClient.class);
+    var results = new Results<Usergroup>();
+    results.setResults(List.of(new Usergroup().withId(UUID.randomUUID().toString())));
+    when(postgresClient.getTenantId()).thenReturn(tenantId);
+    when(postgresClient.get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean()))
+      .thenReturn(Future.succeededFuture(results));
+    return postgresClient;
+  }
+
+  private static PgNotification notification(String origin, String tenantId, String type) {
+    return new PgNotification()
+      .setChannel(CacheInvalidationBus.CHANNEL)
+      .setPayload(new JsonObject()
+        .put("origin", origin)
+        .put("tenant", tenantId)
+        .put("type", type)
+        .encode());
+  }
+}
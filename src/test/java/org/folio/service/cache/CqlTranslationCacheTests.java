@@ -0,0 +1,61 @@
+package org.folio.service.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.folio.cql2pgjson.exception.QueryValidationException;
+import org.junit.jupiter.api.Test;
+
+class CqlTranslationCacheTests {
+  private static final String FIELD = "users.jsonb";
+
+  @Test
+  void sharesTranslatorOfFields() throws Exception {
+    var cache = new CqlTranslationCache(10);
+
+    assertThat(cache.getTranslator(FIELD), is(sameInstance(cache.getTranslator(List.of(FIELD)))));
+  }
+
+  @Test
+  void translatesRepeatedQueryOnce() throws Exception {
+    var cache = new CqlTranslationCache(10);
+    var translator = cache.getTranslator(FIELD);
+
+    var first = translator.toSql("username==\"jdoe\"");
+    var second = translator.toSql("username==\"jdoe\"");
+
+    assertThat(second, is(sameInstance(first)));
+    assertThat(cache.getHits(), is(1L));
+    assertThat(cache.getMisses(), is(1L));
+    assertThat(cache.getSize(), is(1L));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedQuery() throws Exception {
+    var cache = new CqlTranslationCache(2);
+    var translator = cache.getTranslator(FIELD);
+
+    translator.toSql("username==a");
+    translator.toSql("username==b");
+    translator.toSql("username==a");
+    translator.toSql("username==c");
+
+    assertThat(cache.getSize(), is(2L));
+    translator.toSql("username==a");
+    assertThat(cache.getHits(), is(2L));
+    translator.toSql("username==b");
+    assertThat(cache.getMisses(), is(4L));
+  }
+
+  @Test
+  void doesNotCacheInvalidQuery() throws Exception {
+    var translator = new CqlTranslationCache(10).getTranslator(FIELD);
+
+    assertThrows(QueryValidationException.class, () -> translator.toSql("username=="));
+    assertThrows(QueryValidationException.class, () -> translator.toSql("username=="));
+  }
+}
@@ -0,0 +1,64 @@
+package org.folio.service.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.folio.rest.jaxrs.model.AddressType;
+import org.folio.rest.jaxrs.model.Usergroup;
+import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.persist.interfaces.Results;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+
+class ReferenceDataCacheTests {
+  private final ReferenceDataCache cache = ReferenceDataCache.getInstance();
+
+  @Test
+  void loadsAddressTypeIdsOnceUntilInvalidated() {
+    var tenantId = "tenant_" + UUID.randomUUID().toString().replace("-", "");
+    var addressTypeId = UUID.randomUUID().toString();
+    var postgresClient = mock(PostgresClient.class);
+    var results = new Results<AddressType>();
+    results.setResults(List.of(new AddressType().withId(addressTypeId)));
+
+    when(postgresClient.getTenantId()).thenReturn(tenantId);
+    when(postgresClient.get(eq("addresstype"), eq(AddressType.class), any(Criterion.class), anyBoolean()))
+      .thenReturn(Future.succeededFuture(results));
+
+    assertThat(cache.getAddressTypeIds(postgresClient).result(), is(Set.of(addressTypeId)));
+    assertThat(cache.getAddressTypeIds(postgresClient).result(), is(Set.of(addressTypeId)));
+    verify(postgresClient, times(1)).get(eq("addresstype"), eq(AddressType.class), any(Criterion.class), anyBoolean());
+
+    cache.invalidateAddressTypes(tenantId);
+
+    assertThat(cache.getAddressTypeIds(postgresClient).result(), is(Set.of(addressTypeId)));
+    verify(postgresClient, times(2)).get(eq("addresstype"), eq(AddressType.class), any(Criterion.class), anyBoolean());
+  }
+
+  @Test
+  void doesNotCacheFailedLoad() {
+    var tenantId = "tenant_" + UUID.randomUUID().toString().replace("-", "");
+    var postgresClient = mock(PostgresClient.class);
+
+    when(postgresClient.getTenantId()).thenReturn(tenantId);
+    when(postgresClient.get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean()))
+      .thenReturn(Future.failedFuture(new RuntimeException("postgres failed")));
+
+    assertThat(cache.getPatronGroupIds(postgresClient).cause().getMessage(), is("postgres failed"));
+    assertThat(cache.getPatronGroupIds(postgresClient).cause().getMessage(), is("postgres failed"));
+    verify(postgresClient, times(2)).get(eq("groups"), eq(Usergroup.class), any(Criterion.class), anyBoolean());
+  }
+}
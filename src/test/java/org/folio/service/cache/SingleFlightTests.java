@@ -0,0 +1,86 @@
+package org.folio.service.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+class SingleFlightTests {
+  private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+  @Test
+  void sharesInFlightLoadOfSameKey() {
+    var loads = new AtomicInteger();
+    Promise<String> load = Promise.promise();
+
+    var first = singleFlight.execute("diku:1", () -> {
+      loads.incrementAndGet();
+      return load.future();
+    });
+    var second = singleFlight.execute("diku:1", () -> {
+      loads.incrementAndGet();
+      return Future.succeededFuture("other");
+    });
+    load.complete("user");
+
+    assertThat(loads.get(), is(1));
+    assertThat(second, is(sameInstance(first)));
+    assertThat(second.result(), is("user"));
+    assertThat(singleFlight.inFlightCount(), is(0));
+  }
+
+  @Test
+  void completesSharedLoadOnContextOfEachCaller(Vertx vertx, VertxTestContext testContext) {
+    Promise<String> load = Promise.promise();
+    Context firstContext = vertx.getOrCreateContext();
+    Context secondContext = vertx.getOrCreateContext();
+    var checkpoint = testContext.checkpoint(2);
+
+    firstContext.runOnContext(v -> singleFlight.execute("diku:2", load::future)
+      .onComplete(testContext.succeeding(user -> testContext.verify(() -> {
+        assertThat(Vertx.currentContext(), is(sameInstance(firstContext)));
+        checkpoint.flag();
+      }))));
+    vertx.setTimer(50, id -> secondContext.runOnContext(v -> {
+      singleFlight.execute("diku:2", () -> Future.succeededFuture("other"))
+        .onComplete(testContext.succeeding(user -> testContext.verify(() -> {
+          assertThat(user, is("user"));
+          assertThat(Vertx.currentContext(), is(sameInstance(secondContext)));
+          checkpoint.flag();
+        })));
+      firstContext.runOnContext(x -> load.complete("user"));
+    }));
+  }
+
+  @Test
+  void loadsAgainOnceCompleted() {
+    var loads = new AtomicInteger();
+
+    singleFlight.execute("diku:1", () -> Future.succeededFuture("a" + loads.incrementAndGet()));
+    var result = singleFlight.execute("diku:1", () -> Future.succeededFuture("a" + loads.incrementAndGet()));
+
+    assertThat(result.result(), is("a2"));
+  }
+
+  @Test
+  void dropsFailedLoad() {
+    var failed = singleFlight.execute("diku:1", () -> {
+      throw new IllegalStateException("db down");
+    });
+
+    assertThat(failed.failed(), is(true));
+    assertThat(singleFlight.execute("diku:1", () -> Future.succeededFuture("user")).result(), is("user"));
+  }
+}
@@ -0,0 +1,81 @@
+package org.folio.service.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+class TenantCacheTests {
+
+  @Test
+  void sharesLoadOfConcurrentCallers() {
+    var cache = new TenantCache<String>(60000);
+    var loads = new AtomicInteger();
+    Promise<String> load = Promise.promise();
+
+    var first = cache.get("diku", () -> {
+      loads.incrementAndGet();
+      return load.future();
+    });
+    var second = cache.get("diku", () -> {
+      loads.incrementAndGet();
+      return Future.succeededFuture("other");
+    });
+    load.complete("central");
+
+    assertThat(loads.get(), is(1));
+    assertThat(second, is(sameInstance(first)));
+    assertThat(cache.get("diku", () -> Future.succeededFuture("other")).result(), is("central"));
+  }
+
+  @Test
+  void keepsValuesOfTenantsApart() {
+    var cache = new TenantCache<String>(60000);
+
+    cache.get("diku", () -> Future.succeededFuture("a"));
+
+    assertThat(cache.get("other", () -> Future.succeededFuture("b")).result(), is("b"));
+    assertThat(cache.get("diku", () -> Future.succeededFuture("c")).result(), is("a"));
+  }
+
+  @Test
+  void loadsAgainWhenInvalidated() {
+    var cache = new TenantCache<String>(60000);
+
+    cache.get("diku", () -> Future.succeededFuture("a"));
+    cache.invalidate("diku");
+    assertThat(cache.get("diku", () -> Future.succeededFuture("b")).result(), is("b"));
+
+    cache.invalidateAll();
+    assertThat(cache.get("diku", () -> Future.succeededFuture("c")).result(), is("c"));
+  }
+
+  @Test
+  void loadsAgainWhenExpired() {
+    var cache = new TenantCache<String>(0);
+
+    cache.get("diku", () -> Future.succeededFuture("a"));
+
+    assertThat(cache.get("diku", () -> Future.succeededFuture("b")).result(), is("b"));
+  }
+
+  @Test
+  void doesNotCacheFailedLoad() {
+    var cache = new TenantCache<String>(60000);
+
+    var failed = cache.get("diku", () -> Future.failedFuture("db down"));
+    var thrown = cache.get("other", () -> {
+      throw new IllegalStateException("no pool");
+    });
+
+    assertThat(failed.cause().getMessage(), is("db down"));
+    assertThat(thrown.cause().getMessage(), is("no pool"));
+    assertThat(cache.get("diku", () -> Future.succeededFuture("a")).result(), is("a"));
+  }
+}
@@ -0,0 +1,83 @@
+package org.folio.service.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+class UserCacheTests {
+  private static final String TENANT = "diku";
+
+  @Test
+  void loadsUserOnceUntilInvalidated() {
+    var cache = new UserCache(10, 60_000);
+    var loads = new AtomicInteger();
+
+    assertThat(cache.get(TENANT, "1", () -> load(loads, "{\"id\":\"1\"}")).result(), is("{\"id\":\"1\"}"));
+    assertThat(cache.get(TENANT, "1", () -> load(loads, "{\"id\":\"1\"}")).result(), is("{\"id\":\"1\"}"));
+    assertThat(loads.get(), is(1));
+    assertThat(cache.getHits(), is(1L));
+    assertThat(cache.getMisses(), is(1L));
+
+    cache.invalidate(TENANT, "1");
+
+    cache.get(TENANT, "1", () -> load(loads, "{\"id\":\"1\"}"));
+    assertThat(loads.get(), is(2));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedUser() {
+    var cache = new UserCache(2, 60_000);
+    var loads = new AtomicInteger();
+
+    cache.get(TENANT, "1", () -> load(loads, "1"));
+    cache.get(TENANT, "2", () -> load(loads, "2"));
+    cache.get(TENANT, "1", () -> load(loads, "1"));
+    cache.get(TENANT, "3", () -> load(loads, "3"));
+    assertThat(cache.getSize(), is(2L));
+
+    cache.get(TENANT, "1", () -> load(loads, "1"));
+    assertThat(loads.get(), is(3));
+    cache.get(TENANT, "2", () -> load(loads, "2"));
+    assertThat(loads.get(), is(4));
+  }
+
+  @Test
+  void doesNotCacheMissingUserOrLoadStartedBeforeWrite() {
+    var cache = new UserCache(10, 60_000);
+    var loads = new AtomicInteger();
+
+    assertThat(cache.get(TENANT, "1", () -> load(loads, null)).result(), is(nullValue()));
+
+    Promise<String> staleLoad = Promise.promise();
+    cache.get(TENANT, "1", staleLoad::future);
+    cache.invalidate(TENANT, "1");
+    staleLoad.complete("stale");
+
+    assertThat(cache.get(TENANT, "1", () -> load(loads, "fresh")).result(), is("fresh"));
+    assertThat(loads.get(), is(2));
+  }
+
+  @Test
+  void isDisabledWithoutSize() {
+    var cache = new UserCache(0, 60_000);
+    var loads = new AtomicInteger();
+
+    cache.get(TENANT, "1", () -> load(loads, "1"));
+    cache.get(TENANT, "1", () -> load(loads, "1"));
+
+    assertThat(cache.isEnabled(), is(false));
+    assertThat(loads.get(), is(2));
+  }
+
+  private static Future<String> load(AtomicInteger loads, String json) {
+    loads.incrementAndGet();
+    return Future.succeededFuture(json);
+  }
+}
@@ -0,0 +1,45 @@
+package org.folio.support;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonObject;
+
+class ConditionalGetTests {
+  @Test
+  void usesVersionOfRecord() {
+    assertThat(ConditionalGet.etag(new JsonObject().put("id", "1").put("_version", 4)), is("\"4\""));
+  }
+
+  @Test
+  void collectionEtagChangesWithUpdatedDate() {
+    final var before = collection("2024-01-01T00:00:00.000+00:00");
+    final var after = collection("2024-01-02T00:00:00.000+00:00");
+
+    assertThat(ConditionalGet.etag(before), is(ConditionalGet.etag(collection("2024-01-01T00:00:00.000+00:00"))));
+    assertThat(ConditionalGet.etag(before), is(not(ConditionalGet.etag(after))));
+  }
+
+  @Test
+  void ifNoneMatchUsesWeakComparison() {
+    assertThat(ConditionalGet.matches("\"1\", W/\"abc\"", "W/\"abc\""), is(true));
+    assertThat(ConditionalGet.matches("W/\"4\"", "\"4\""), is(true));
+    assertThat(ConditionalGet.matches("*", "\"4\""), is(true));
+    assertThat(ConditionalGet.matches("\"3\"", "\"4\""), is(false));
+    assertThat(ConditionalGet.matches(null, "\"4\""), is(false));
+  }
+
+  private static JsonObject collection(String updatedDate) {
+    return new JsonObject()
+      .put("usergroups", List.of(new JsonObject()
+        .put("id", "1")
+        .put("group", "staff")
+        .put("metadata", new JsonObject().put("updatedDate", updatedDate))))
+      .put("totalRecords", 1);
+  }
+}
@@ -0,0 +1,53 @@
+package org.folio.support;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonObject;
+
+class JsonMergePatchTests {
+  @Test
+  void mergesNestedObjectsAndRemovesNullFields() {
+    final var target = new JsonObject()
+      .put("username", "steve")
+      .put("barcode", "12345")
+      .put("personal", new JsonObject().put("lastName", "rogers").put("email", "steve@example.com"));
+    final var patch = new JsonObject()
+      .put("barcode", null)
+      .put("active", false)
+      .put("personal", new JsonObject().put("email", "cap@example.com"));
+
+    final var patched = JsonMergePatch.apply(target, patch);
+
+    assertThat(patched, is(new JsonObject()
+      .put("username", "steve")
+      .put("active", false)
+      .put("personal", new JsonObject().put("lastName", "rogers").put("email", "cap@example.com"))));
+    assertThat(target.getString("barcode"), is("12345"));
+  }
+
+  @Test
+  void replacesArrays() {
+    final var target = new JsonObject().put("departments", List.of("a", "b"));
+    final var patch = new JsonObject().put("departments", List.of("c"));
+
+    assertThat(JsonMergePatch.apply(target, patch).getJsonArray("departments").getList(), is(List.of("c")));
+  }
+
+  @Test
+  void tellsWhichFieldsArePatched() {
+    final var patch = new JsonObject()
+      .put("active", false)
+      .put("personal", new JsonObject().put("addresses", List.of()));
+
+    assertThat(JsonMergePatch.touches(patch, "active"), is(true));
+    assertThat(JsonMergePatch.touches(patch, "personal.addresses"), is(true));
+    assertThat(JsonMergePatch.touches(patch, "personal.dateOfBirth"), is(false));
+    assertThat(JsonMergePatch.touches(patch, "patronGroup"), is(false));
+    assertThat(JsonMergePatch.touches(new JsonObject().putNull("personal"), "personal.addresses"), is(true));
+  }
+}
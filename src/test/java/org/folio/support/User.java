@@ -4,6 +4,7 @@ import java.util.Map;
 import java.time.ZonedDateTime;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Builder;
 import lombok.Value;
@@ -17,6 +18,7 @@ public class User {
   String id;
   String username;
   String barcode;
+  String externalSystemId;
   Boolean active;
   String type;
   ZonedDateTime expirationDate;
@@ -25,4 +27,6 @@ public class User {
   TagList tags;
   Metadata metadata;
   Map<String, String> customFields;
+  @JsonProperty("_version")
+  Integer version;
 }
@@ -0,0 +1,42 @@
+package org.folio.support;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Date;
+
+import org.folio.rest.jaxrs.model.Metadata;
+import org.folio.rest.jaxrs.model.Personal;
+import org.folio.rest.jaxrs.model.User;
+import org.junit.jupiter.api.Test;
+
+class UserDiffTests {
+  @Test
+  void ignoresMetadataAndVersion() {
+    final var stored = user()
+      .withVersion(3)
+      .withUpdatedDate(new Date(0))
+      .withMetadata(new Metadata().withUpdatedDate(new Date(0)));
+    final var incoming = user()
+      .withUpdatedDate(new Date())
+      .withMetadata(new Metadata().withUpdatedDate(new Date()));
+
+    assertThat(UserDiff.isUnchanged(incoming, stored), is(true));
+  }
+
+  @Test
+  void detectsChangedNestedField() {
+    final var incoming = user();
+    incoming.getPersonal().setEmail("julia.brockhurst@example.com");
+
+    assertThat(UserDiff.isUnchanged(incoming, user()), is(false));
+  }
+
+  private static User user() {
+    return new User()
+      .withId("a3e8d7c4-7a1f-4a34-9d1b-6c1d3ad0e4b2")
+      .withUsername("julia")
+      .withActive(true)
+      .withPersonal(new Personal().withLastName("brockhurst").withEmail("julia@example.com"));
+  }
+}
@@ -17,6 +17,7 @@ public class Users {
   List<User> users;
   ResultInfo resultInfo;
   int totalRecords;
+  String nextCursor;
 
   public User getFirstUser() {
     return users.get(0);
@@ -1,8 +1,12 @@
 package org.folio.support.http;
 
+import static io.restassured.http.ContentType.JSON;
 import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
 import static java.net.HttpURLConnection.HTTP_OK;
 
+import java.util.List;
+import java.util.Map;
+
 import org.folio.support.User;
 import org.folio.support.Users;
 
@@ -51,6 +55,40 @@ public class UsersClient {
     return client.getAllRecords();
   }
 
+  public Users getUsers(String cqlQuery, String totalRecords) {
+    return attemptToGetUsers(cqlQuery, totalRecords)
+      .statusCode(HTTP_OK)
+      .extract().as(Users.class);
+  }
+
+  public ValidatableResponse attemptToGetUsers(String cqlQuery, String totalRecords) {
+    return client.initialSpecification()
+      .when()
+      .queryParam("query", cqlQuery)
+      .queryParam("totalRecords", totalRecords)
+      .get()
+      .then();
+  }
+
+  public ValidatableResponse attemptToGetUsersWithFields(String cqlQuery, String fields) {
+    return client.initialSpecification()
+      .when()
+      .queryParam("query", cqlQuery)
+      .queryParam("fields", fields)
+      .get()
+      .then();
+  }
+
+  public ValidatableResponse attemptToGetUsersPage(String cqlQuery, String cursor, int limit) {
+    return client.initialSpecification()
+      .when()
+      .queryParam("query", cqlQuery)
+      .queryParam("cursor", cursor)
+      .queryParam("limit", limit)
+      .get()
+      .then();
+  }
+
   public Users getPatronGroupFacets() {
     return client.initialSpecification()
       .when()
@@ -64,6 +102,50 @@ public class UsersClient {
       .extract().as(Users.class);
   }
 
+  public ValidatableResponse attemptToSaveUsersBatch(@NonNull List<User> users) {
+    return client.initialSpecification()
+      .contentType(JSON)
+      .when()
+      .body(Map.of("users", users))
+      .post("/batch")
+      .then();
+  }
+
+  public ValidatableResponse attemptToResolveIdentifier(String identifier) {
+    return client.initialSpecification()
+      .when()
+      .queryParam("identifier", identifier)
+      .get("/identifiers/resolve")
+      .then();
+  }
+
+  public ValidatableResponse attemptToSubmitJob(@NonNull Map<String, Object> job) {
+    return client.initialSpecification()
+      .contentType(JSON)
+      .when()
+      .body(job)
+      .post("/jobs")
+      .then();
+  }
+
+  public ValidatableResponse attemptToGetJob(String jobId) {
+    return client.initialSpecification()
+      .when()
+      .get("/jobs/" + jobId)
+      .then();
+  }
+
+  public Users getUsersByIds(@NonNull List<String> ids) {
+    return client.initialSpecification()
+      .contentType(JSON)
+      .when()
+      .body(Map.of("ids", ids))
+      .post("/by-ids")
+      .then()
+      .statusCode(HTTP_OK)
+      .extract().as(Users.class);
+  }
+
   public void deleteUser(String id) {
     client.deleteRecord(id);
   }
@@ -92,4 +174,31 @@ public class UsersClient {
   public ValidatableResponse attemptToUpdateUser(String id, @NonNull User user) {
     return client.attemptToUpdateRecord(id, user);
   }
+
+  public ValidatableResponse attemptToGetUserIfNoneMatch(String id, String ifNoneMatch) {
+    return client.initialSpecification()
+      .header("If-None-Match", ifNoneMatch)
+      .when()
+      .get("/" + id)
+      .then();
+  }
+
+  public ValidatableResponse attemptToUpdateUserIfMatch(@NonNull User user, String ifMatch) {
+    return client.initialSpecification()
+      .contentType(JSON)
+      .header("If-Match", ifMatch)
+      .when()
+      .body(user)
+      .put("/" + user.getId())
+      .then();
+  }
+
+  public ValidatableResponse attemptToPatchUser(String id, @NonNull Map<String, Object> patch) {
+    return client.initialSpecification()
+      .contentType(JSON)
+      .when()
+      .body(patch)
+      .patch("/" + id)
+      .then();
+  }
 }
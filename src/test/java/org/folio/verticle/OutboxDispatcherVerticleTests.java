@@ -0,0 +1,186 @@
+package org.folio.verticle;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.folio.event.service.UserOutboxService;
+import org.folio.event.service.UserOutboxService.DrainResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+
+@ExtendWith(VertxExtension.class)
+class OutboxDispatcherVerticleTests {
+  private static final String TENANT = "diku";
+
+  @Test
+  void coalescesNotificationsOfATenant(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var verticle = new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService(drains), 10);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> {
+      verticle.dispatch(TENANT);
+      verticle.dispatch(TENANT);
+      verticle.dispatch(TENANT);
+    });
+    vertx.setTimer(200, id -> context.runOnContext(v -> testContext.verify(() -> {
+      assertThat(drains.size(), is(1));
+      // notifications during a drain start one more drain after it
+      verticle.dispatch(TENANT);
+      verticle.dispatch(TENANT);
+      drains.get(0).complete(new DrainResult(1, 0));
+      assertThat(drains.size(), is(2));
+      drains.get(1).complete(new DrainResult(0, 0));
+      assertThat(drains.size(), is(2));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void drainsUntilTheOutboxIsEmpty(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var verticle = new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService(drains), 0);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> testContext.verify(() -> {
+      verticle.dispatch(TENANT);
+      drains.get(0).complete(new DrainResult(5000, 300));
+      drains.get(1).complete(new DrainResult(300, 0));
+      assertThat(drains.size(), is(2));
+      testContext.completeNow();
+    }));
+  }
+
+  @Test
+  void rechecksEventLogsOfOtherDrains(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var verticle = new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService(drains), 0);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> testContext.verify(() -> {
+      verticle.dispatch(TENANT);
+      drains.get(0).complete(new DrainResult(0, 42));
+      assertThat(drains.size(), is(1));
+    }));
+    vertx.setTimer(1500, id -> context.runOnContext(v -> testContext.verify(() -> {
+      assertThat(drains.size(), is(2));
+      drains.get(1).complete(new DrainResult(0, 0));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void drainsANotificationWithoutWaitingForTheRecheck(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var verticle = new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService(drains), 0);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> testContext.verify(() -> {
+      verticle.dispatch(TENANT);
+      drains.get(0).complete(new DrainResult(0, 42));
+      verticle.dispatch(TENANT);
+      assertThat(drains.size(), is(2));
+      drains.get(1).complete(new DrainResult(42, 0));
+    }));
+    vertx.setTimer(1500, id -> context.runOnContext(v -> testContext.verify(() -> {
+      // the recheck has been cancelled
+      assertThat(drains.size(), is(2));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void retriesAFailedDrain(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var verticle = verticle(userOutboxService(drains), true);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> {
+      verticle.dispatch(TENANT);
+      drains.get(0).fail("Kafka is unavailable");
+    });
+    vertx.setTimer(1500, id -> context.runOnContext(v -> testContext.verify(() -> {
+      assertThat(drains.size(), is(2));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void dropsTheDrainOfATenantWithoutOutbox(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var userOutboxService = userOutboxService(drains);
+    var verticle = verticle(userOutboxService, false);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> {
+      verticle.dispatch(TENANT);
+      drains.get(0).fail("relation diku_mod_users.outbox_event_log does not exist");
+    });
+    vertx.setTimer(1500, id -> context.runOnContext(v -> testContext.verify(() -> {
+      assertThat(drains.size(), is(1));
+      verify(userOutboxService).resetBatchSize(TENANT);
+      // a notification after the tenant has been enabled again starts a new drain
+      verticle.dispatch(TENANT);
+      assertThat(drains.size(), is(2));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void drainsWithoutRequestToken(Vertx vertx, VertxTestContext testContext) {
+    List<Promise<DrainResult>> drains = new ArrayList<>();
+    var userOutboxService = userOutboxService(drains);
+    var verticle = new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService, 0);
+    Context context = vertx.getOrCreateContext();
+    verticle.init(vertx, context);
+
+    context.runOnContext(v -> testContext.verify(() -> {
+      verticle.dispatch(TENANT);
+      verify(userOutboxService).drainOutboxEventLogs(any(), argThat(headers ->
+        TENANT.equals(headers.get("x-okapi-tenant")) && !headers.containsKey("x-okapi-token")), anyLong());
+      testContext.completeNow();
+    }));
+  }
+
+  private static OutboxDispatcherVerticle verticle(UserOutboxService userOutboxService, boolean hasOutbox) {
+    return new OutboxDispatcherVerticle(new PgConnectOptions(), userOutboxService, 0) {
+      @Override
+      Future<Boolean> hasOutbox(String tenantId) {
+        return Future.succeededFuture(hasOutbox);
+      }
+    };
+  }
+
+  private static UserOutboxService userOutboxService(List<Promise<DrainResult>> drains) {
+    var userOutboxService = mock(UserOutboxService.class);
+    when(userOutboxService.drainOutboxEventLogs(any(), any(), anyLong())).thenAnswer(invocation -> {
+      Promise<DrainResult> drain = Promise.promise();
+      drains.add(drain);
+      return drain.future();
+    });
+    return userOutboxService;
+  }
+}